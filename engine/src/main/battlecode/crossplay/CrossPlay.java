@@ -26,7 +26,9 @@ import static battlecode.crossplay.CrossPlayObjectType.THROWN_GAME_ACTION_EXCEPT
  * Battlecode 2026 supports Java and Python.
  */
 public class CrossPlay {
-    private static final int IPC_PORT = 27185;
+    public static final int DEFAULT_IPC_PORT = 27185;
+
+    private final int ipcPort;
 
     private RobotController processingRobot;
     private OutputStream out;
@@ -40,6 +42,14 @@ public class CrossPlay {
     private final ObjectMapper objectMapper;
 
     public CrossPlay() {
+        this(DEFAULT_IPC_PORT);
+    }
+
+    /**
+     * @param ipcPort the local port external bots connect to
+     */
+    public CrossPlay(int ipcPort) {
+        this.ipcPort = ipcPort;
         this.objectMapper = new ObjectMapper();
         this.initializedBots = new java.util.HashSet<>();
     }
@@ -49,7 +59,7 @@ public class CrossPlay {
 
         Server.debug("Init crossplay socket");
         try {
-            serverSocket = new ServerSocket(IPC_PORT);
+            serverSocket = new ServerSocket(ipcPort);
             socket = serverSocket.accept();
 
             Server.debug("Crossplay connection accepted");
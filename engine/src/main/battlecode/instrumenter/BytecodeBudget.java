@@ -0,0 +1,32 @@
+package battlecode.instrumenter;
+
+/**
+ * The bytecode budget of one robot player, shared between the engine and
+ * the player's RobotMonitor. The engine sets the limit before each turn and
+ * the monitor reports what's left whenever the turn ends, so neither side
+ * has to reach into the other's classes to exchange them.
+ *
+ * The fields are only touched by whichever side currently has control, and
+ * the handoff between them orders the writes, so they don't need to be
+ * volatile.
+ */
+public final class BytecodeBudget {
+
+    /**
+     * The bytecode limit of the current turn. Written by the engine.
+     */
+    public int limit;
+
+    /**
+     * The bytecodes the player had left when its last turn ended; negative
+     * if it went over. Written by the monitor.
+     */
+    public int left;
+
+    /**
+     * @return the bytecodes used by the player during its last turn
+     */
+    public int getUsed() {
+        return limit - left;
+    }
+}
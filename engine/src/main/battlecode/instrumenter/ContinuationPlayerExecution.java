@@ -0,0 +1,66 @@
+package battlecode.instrumenter;
+
+import battlecode.server.ErrorReporter;
+import jdk.internal.vm.Continuation;
+import jdk.internal.vm.ContinuationScope;
+
+/**
+ * Runs a player as a continuation on the engine thread. Resuming the player
+ * mounts its stack on the engine thread and pausing unmounts it again, so a
+ * turn switch involves neither another thread nor the OS scheduler.
+ *
+ * A continuation can't yield while a class initializer or native frame is
+ * on its stack. A player that runs out of bytecodes there keeps running on
+ * the bytecodes of its following turns instead, and SandboxedRobotPlayer
+ * skips those turns afterwards.
+ *
+ * Needs --add-exports java.base/jdk.internal.vm=ALL-UNNAMED.
+ */
+final class ContinuationPlayerExecution implements PlayerExecution {
+
+    private static final ContinuationScope SCOPE = new ContinuationScope("battlecode-player");
+
+    private Continuation continuation;
+
+    ContinuationPlayerExecution() {
+        if (!Object.class.getModule().isExported("jdk.internal.vm", ContinuationPlayerExecution.class.getModule())) {
+            throw new IllegalStateException("bc.engine.execution=continuations needs the JVM option "
+                    + "--add-exports java.base/jdk.internal.vm=ALL-UNNAMED");
+        }
+    }
+
+    @Override
+    public void start(String name, Runnable body) {
+        continuation = new Continuation(SCOPE, body) {
+            @Override
+            protected void onPinned(Continuation.Pinned reason) {
+                // Don't throw; pause() reports that we didn't yield
+            }
+        };
+        resume();
+    }
+
+    @Override
+    public void resume() {
+        if (continuation.isDone()) {
+            return;
+        }
+        try {
+            continuation.run();
+        } catch (RuntimeException | Error e) {
+            // A player thread would have died with this; don't take the
+            // engine down with it
+            ErrorReporter.report(e, true);
+        }
+    }
+
+    @Override
+    public boolean pause() {
+        return Continuation.yield(SCOPE);
+    }
+
+    @Override
+    public boolean canPauseInClassInitializer() {
+        return false;
+    }
+}
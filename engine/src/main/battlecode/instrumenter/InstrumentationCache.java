@@ -0,0 +1,135 @@
+package battlecode.instrumenter;
+
+import battlecode.server.ErrorReporter;
+import battlecode.util.ContentHash;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.util.HexFormat;
+
+/**
+ * An on-disk cache of instrumented class files, so that classes don't have
+ * to be instrumented again every time the engine starts.
+ *
+ * An entry is keyed by the content of everything its bytes depend on: the
+ * original class file, the engine (and so the instrumenter) that
+ * instrumented it, the Java runtime the library classes come from, how it
+ * was instrumented (whether disallowed classes were checked for, whether
+ * debug methods run, whether the profiler is enabled), and a scope naming
+ * the team classes the instrumenter could see. Instrumented bytes only
+ * depend on those, so a cached entry is exactly what instrumenting the
+ * class again would give.
+ *
+ * Entries are stored one class file per key, so the cache can be shared by
+ * several engines at once.
+ */
+public final class InstrumentationCache {
+
+    /**
+     * Bump to throw away every entry when the instrumented format changes in
+     * a way the engine hash wouldn't notice.
+     */
+    private static final int VERSION = 1;
+
+    private final File directory;
+
+    /**
+     * The hash of the engine and runtime, which every key starts from.
+     */
+    private final String engineKey;
+
+    /**
+     * Whether a failed write has been reported; later ones aren't.
+     */
+    private volatile boolean warned;
+
+    /**
+     * @param directory the directory to keep classes in; created if needed
+     * @throws IOException if the engine's own classes can't be hashed
+     */
+    public InstrumentationCache(File directory) throws IOException {
+        this.directory = directory;
+
+        MessageDigest digest = ContentHash.newDigest();
+        ContentHash.update(digest, String.valueOf(VERSION));
+        ContentHash.update(digest, ContentHash.ofEngine());
+        ContentHash.update(digest, Runtime.version().toString());
+        this.engineKey = HexFormat.of().formatHex(digest.digest());
+    }
+
+    /**
+     * Computes the cache key of an instrumented class.
+     *
+     * @param scope           the team classes the instrumenter saw: the hash
+     *                        of the team for team classes, or of anything
+     *                        the team shadows for library classes
+     * @param className       the name of the class
+     * @param original        the class file before instrumentation
+     * @param checkDisallowed whether disallowed classes were checked for
+     * @param debugMethods    whether debug methods run
+     * @param profiler        whether the profiler is enabled
+     * @return the key
+     */
+    public String keyFor(String scope, String className, byte[] original,
+                         boolean checkDisallowed, boolean debugMethods, boolean profiler) {
+        MessageDigest digest = ContentHash.newDigest();
+        ContentHash.update(digest, engineKey);
+        ContentHash.update(digest, scope);
+        ContentHash.update(digest, className);
+        ContentHash.update(digest, String.valueOf(checkDisallowed));
+        ContentHash.update(digest, String.valueOf(debugMethods));
+        ContentHash.update(digest, String.valueOf(profiler));
+        digest.update(original);
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    /**
+     * @param key the key of the class
+     * @return the instrumented class file, or null if it isn't cached or
+     *         can't be read
+     */
+    public byte[] get(String key) {
+        Path file = new File(directory, key + ".class").toPath();
+        byte[] bytes;
+        try {
+            bytes = Files.readAllBytes(file);
+        } catch (IOException e) {
+            return null;
+        }
+
+        // Anything that isn't a class file was corrupted somehow
+        if (bytes.length < 4 || (bytes[0] & 0xFF) != 0xCA || (bytes[1] & 0xFF) != 0xFE
+                || (bytes[2] & 0xFF) != 0xBA || (bytes[3] & 0xFF) != 0xBE) {
+            return null;
+        }
+        return bytes;
+    }
+
+    /**
+     * Stores an instrumented class. Failures are reported once but
+     * otherwise ignored; the cache is only an optimization.
+     *
+     * @param key   the key of the class
+     * @param bytes the instrumented class file
+     */
+    public void put(String key, byte[] bytes) {
+        try {
+            Files.createDirectories(directory.toPath());
+
+            // Write to a temporary file first so readers never see half a class
+            Path tmp = Files.createTempFile(directory.toPath(), key, ".tmp");
+            Files.write(tmp, bytes);
+            Files.move(tmp, new File(directory, key + ".class").toPath(),
+                    StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            if (!warned) {
+                warned = true;
+                ErrorReporter.warn("Couldn't cache instrumented class: " + e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package battlecode.instrumenter;
+
+import battlecode.instrumenter.profiler.Profiler;
+import battlecode.world.control.PlayerControlProvider;
+import org.hibernate.search.util.WeakIdentityHashMap;
+
+import java.io.PrintStream;
+import java.util.Properties;
+import java.util.Random;
+
+/**
+ * The state one robot player keeps in the classes injected into its
+ * sandbox: RobotMonitor's bytecode counters and hooks, the identity hash
+ * codes ObjectMethods hands out, InstrumentableFunctions' Random, and
+ * System's stream and properties.
+ *
+ * Those classes used to keep it in static fields, which meant every robot
+ * needed its own copy of them and of every library class that calls them.
+ * Keeping it here instead lets one copy be shared by all of a team's
+ * robots; the engine makes a player's context the active one in its
+ * library before handing control to the player, and the injected classes
+ * always work on the active context.
+ *
+ * Like BytecodeBudget, the fields are only touched by whichever side
+ * currently has control, so they don't need to be volatile.
+ */
+public final class PlayerContext {
+
+    public final SandboxedRobotPlayer.Pauser pauser;
+    public final SandboxedRobotPlayer.Killer killer;
+    public final BytecodeBudget budget;
+    public final int randomSeed;
+
+    /**
+     * The profiler to log bytecode usage per method to, or null if
+     * profiling is disabled.
+     */
+    public final Profiler profiler;
+
+    /**
+     * Used to query the team's computation time.
+     */
+    public final PlayerControlProvider provider;
+
+    public int bytecodesLeft;
+    public int bytecodesToRemove;
+    public boolean shouldDie;
+    public int debugLevel;
+
+    /**
+     * Whether counting bytecodes only means taking them off bytecodesLeft:
+     * the player isn't being killed, isn't in a debug method, isn't owed
+     * bytecodes by incrementBytecodesWithoutInterrupt and isn't profiled.
+     * Whoever changes one of those calls updateFastPath().
+     */
+    public boolean fastPath;
+
+    /**
+     * How many class initializers the player is currently inside.
+     */
+    public int classInitializers;
+
+    /**
+     * How many of those belong to library classes.
+     */
+    public int libraryClassInitializers;
+
+    /**
+     * The identity hash codes handed out so far, and the last one. Codes
+     * are handed out in order, so they only depend on what the player did.
+     */
+    public final WeakIdentityHashMap<Object, Integer> hashCodes;
+    public int lastHashCode;
+
+    /**
+     * The Random behind Math.random(); created on first use.
+     */
+    public Random random;
+
+    /**
+     * What System.out and System.err print to, and the properties System
+     * hands out; set up by SandboxedRobotPlayer.
+     */
+    public PrintStream out;
+    public Properties properties;
+
+    /**
+     * @param pauser   pauser to use to pause the player
+     * @param killer   killer to use to kill the player
+     * @param budget   the budget the engine sets the player's bytecode limit in
+     * @param seed     seed to use for new Random instances
+     * @param profiler profiler to log bytecode usage per method to (profiling is disabled if null)
+     * @param provider player control provider to query computation time remaining
+     */
+    public PlayerContext(SandboxedRobotPlayer.Pauser pauser,
+                         SandboxedRobotPlayer.Killer killer,
+                         BytecodeBudget budget,
+                         int seed,
+                         Profiler profiler,
+                         PlayerControlProvider provider) {
+        this.pauser = pauser;
+        this.killer = killer;
+        this.budget = budget;
+        this.randomSeed = seed;
+        this.profiler = profiler;
+        this.provider = provider;
+        this.hashCodes = new WeakIdentityHashMap<>();
+        this.lastHashCode = -1;
+        updateFastPath();
+    }
+
+    /**
+     * Recomputes fastPath after a change to the state it depends on.
+     */
+    public void updateFastPath() {
+        fastPath = !shouldDie && debugLevel == 0 && bytecodesToRemove == 0 && profiler == null;
+    }
+
+    /**
+     * @return the bytecode number the player is currently on; this can be
+     *         above its limit in some cases
+     */
+    public int getBytecodeNum() {
+        return budget.limit - bytecodesLeft;
+    }
+}
@@ -0,0 +1,66 @@
+package battlecode.instrumenter;
+
+import battlecode.server.Config;
+
+/**
+ * Runs a sandboxed player's code in turns with the engine: the player runs
+ * until it pauses, then the engine runs until it resumes the player. The
+ * player keeps its call stack between turns.
+ *
+ * Only the engine thread may call {@link #start} and {@link #resume}, and
+ * only the player's code {@link #pause}.
+ */
+interface PlayerExecution {
+
+    /**
+     * Starts running the player, and waits until it first pauses or
+     * finishes.
+     *
+     * @param name the name of the player, for its thread
+     * @param body the player's code
+     * @throws InterruptedException if the engine thread is interrupted
+     */
+    void start(String name, Runnable body) throws InterruptedException;
+
+    /**
+     * Lets the player run, and waits until it pauses or finishes.
+     *
+     * @throws InterruptedException if the engine thread is interrupted
+     */
+    void resume() throws InterruptedException;
+
+    /**
+     * Hands control back to the engine, and waits until the player is
+     * resumed.
+     *
+     * @return false if the player can't be paused where it is, in which
+     *         case this returns immediately
+     * @throws InterruptedException if the player's thread is interrupted
+     */
+    boolean pause() throws InterruptedException;
+
+    /**
+     * @return whether the player can be paused inside a class initializer
+     *         without holding up other players
+     */
+    default boolean canPauseInClassInitializer() {
+        return true;
+    }
+
+    /**
+     * Creates the execution selected by bc.engine.execution.
+     */
+    static PlayerExecution create(Config options) {
+        final String execution = options.get("bc.engine.execution");
+        switch (execution) {
+            case "threads":
+                return new ThreadPlayerExecution(
+                        options.getBoolean("bc.engine.virtual-threads"),
+                        options.getInt("bc.engine.handoff-spins"));
+            case "continuations":
+                return new ContinuationPlayerExecution();
+            default:
+                throw new IllegalArgumentException("Unknown bc.engine.execution: " + execution);
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package battlecode.instrumenter;
+
+import java.lang.reflect.Method;
+
+/**
+ * A robot player's classloader, with its copies of the classes the engine
+ * talks to already loaded. Nothing in a sandbox has run yet, so it can be
+ * prepared ahead of time on any thread and then handed to a
+ * SandboxedRobotPlayer.
+ */
+public final class Sandbox {
+
+    private final TeamClassLoaderFactory.Loader loader;
+
+    final Method pauseMethod;
+
+    /**
+     * Loads the sandbox's RobotMonitor and initializes its System, so that
+     * neither costs the player anything. Team classes are left
+     * for the player to load, so that instrumentation only ever happens on
+     * the thread running the player.
+     *
+     * @param loader the classloader to prepare
+     * @throws RuntimeException if our classes can't be loaded
+     */
+    public Sandbox(TeamClassLoaderFactory.Loader loader) {
+        this.loader = loader;
+
+        try {
+            // The loaded, uninstrumented-but-individual RobotMonitor for this player.
+            Class<?> monitor = loader.loadClass("battlecode.instrumenter.inject.RobotMonitor");
+
+            pauseMethod = monitor.getMethod("pause");
+
+            Class.forName("battlecode.instrumenter.inject.System", true, loader);
+        } catch (ReflectiveOperationException e) {
+            throw new RuntimeException("Couldn't load RobotMonitor", e);
+        }
+    }
+
+    /**
+     * @return the classloader of the sandbox
+     */
+    public TeamClassLoaderFactory.Loader getLoader() {
+        return loader;
+    }
+}
@@ -0,0 +1,104 @@
+package battlecode.instrumenter;
+
+import battlecode.server.ErrorReporter;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Keeps a few sandboxes for a team ready ahead of time, so that spawning a
+ * robot doesn't have to wait for its classloader to be set up.
+ *
+ * Sandboxes are prepared on a background thread whenever the pool is
+ * topped up, and handed out in order. A sandbox that has run a player is
+ * never handed out again, since the player's static state lives in it;
+ * sandboxes that were never handed out stay in the pool from one match to
+ * the next. Matches that share a pool must run one at a time, since a
+ * shared library's classes follow whichever robot is running.
+ */
+public final class SandboxPool {
+
+    /**
+     * Prepares sandboxes for every pool.
+     */
+    private static final ExecutorService WARMER = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "sandbox-warmer");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private final TeamClassLoaderFactory factory;
+    private final boolean profilerEnabled;
+    private final int size;
+
+    private final ConcurrentLinkedQueue<Sandbox> ready;
+
+    /**
+     * The number of sandboxes being prepared.
+     */
+    private final AtomicInteger pending;
+
+    /**
+     * @param factory         the team's classloader factory
+     * @param profilerEnabled whether the team's players are profiled
+     * @param size            how many sandboxes to keep ready; 0 to always
+     *                        create them on demand
+     */
+    public SandboxPool(TeamClassLoaderFactory factory, boolean profilerEnabled, int size) {
+        this.factory = factory;
+        this.profilerEnabled = profilerEnabled;
+        this.size = Math.max(size, 0);
+        this.ready = new ConcurrentLinkedQueue<>();
+        this.pending = new AtomicInteger();
+    }
+
+    /**
+     * @return the factory the pool creates classloaders with
+     */
+    public TeamClassLoaderFactory getFactory() {
+        return factory;
+    }
+
+    /**
+     * Takes a sandbox from the pool, or prepares one on the calling thread
+     * if none are ready.
+     *
+     * @throws InstrumentationException if the team's classes can't be loaded
+     */
+    public Sandbox take() {
+        Sandbox sandbox = ready.poll();
+        if (sandbox == null) {
+            sandbox = new Sandbox(factory.createLoader(profilerEnabled));
+        }
+        return sandbox;
+    }
+
+    /**
+     * Starts preparing sandboxes in the background until the pool is full.
+     */
+    public void refill() {
+        // A team with errors will fail to load anyway; let take() report it
+        if (factory.getError()) {
+            return;
+        }
+
+        while (ready.size() + pending.get() < size) {
+            pending.incrementAndGet();
+            WARMER.execute(() -> {
+                try {
+                    if (!factory.getError()) {
+                        ready.add(new Sandbox(factory.createLoader(profilerEnabled)));
+                    }
+                } catch (InstrumentationException e) {
+                    // The team's code is broken; take() will report it
+                } catch (RuntimeException e) {
+                    ErrorReporter.warn("Couldn't prepare a sandbox ahead of time: " + e.getMessage());
+                } finally {
+                    pending.decrementAndGet();
+                }
+            });
+        }
+    }
+}
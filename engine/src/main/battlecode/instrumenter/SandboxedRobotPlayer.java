@@ -19,6 +19,7 @@ import java.io.UnsupportedEncodingException;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
+import java.util.Properties;
 
 import static battlecode.instrumenter.InstrumentationException.Type.ILLEGAL;
 import static battlecode.instrumenter.InstrumentationException.Type.MISSING;
@@ -44,6 +45,15 @@ public class SandboxedRobotPlayer {
 
     public static final String PLAYER_CLASS_NAME = "RobotPlayer";
 
+    /**
+     * The most turns a player can run ahead without pausing before it's
+     * killed. Only players that can't pause in a class initializer (see
+     * pausePlayer) run ahead, and until they pause or die the engine waits
+     * on them; bc.engine.virtual-threads documents what that means for
+     * results.
+     */
+    private static final int MAX_OWED_TURNS = 100;
+
     /**
      * The controller for the robot we're controlling.
      */
@@ -70,34 +80,42 @@ public class SandboxedRobotPlayer {
     private final TeamClassLoaderFactory.Loader individualLoader;
 
     /**
-     * The main thread the player is running on.
+     * The sandbox the player runs in.
+     */
+    private final Sandbox sandbox;
+
+    /**
+     * Runs the player's code in turns with the engine.
      */
-    private final Thread mainThread;
+    private final PlayerExecution execution;
 
     /**
-     * Used to pause the player thread after loading
+     * Turns the player has already used up without pausing, because it ran
+     * out of bytecodes somewhere it couldn't be paused. That many steps are
+     * skipped before it runs again.
      */
-    private final Method pauseMethod;
+    private int owedTurns;
 
     /**
-     * The cached 'killRobot' method of the monitor.
+     * Whether the most recent step was skipped to pay back a turn.
      */
-    private final Method killMethod;
+    private boolean skippedStep;
 
     /**
-     * The cached 'setBytecodeLimit' method of the monitor.
+     * The bytecode limit of the player, and what it has left after a step.
      */
-    private final Method setBytecodeLimitMethod;
+    private final BytecodeBudget budget;
 
     /**
-     * The cached 'getBytecodeNum' method of the monitor.
+     * The player's state in the classes injected into its sandbox.
      */
-    private final Method getBytecodeNumMethod;
+    private final PlayerContext context;
 
     /**
-     * The object used to trade of control between threads.
+     * The loader whose injected classes the player runs with; it may be
+     * shared with the player's teammates.
      */
-    private final Object notifier;
+    private final TeamClassLoaderFactory.Loader library;
 
     /**
      * Whether or not we are currently running, i.e. in "step".
@@ -108,7 +126,18 @@ public class SandboxedRobotPlayer {
      * Used so we don't create a new PrintStream for every robot
      * every round.
      */
-    private OutputStream systemOut;
+    private PrintStream systemOut;
+
+    /**
+     * The configuration of the match the player is running in.
+     */
+    private final Config options;
+
+    /**
+     * Prepended to what is printed about the player, to tell apart matches
+     * running at the same time.
+     */
+    private final String outputLabel;
 
     /**
      * Create a new sandboxed robot player.
@@ -118,8 +147,10 @@ public class SandboxedRobotPlayer {
      * @param crossPlayServer   handle to a CrossPlay server
      * @param robotController   the robot we're loading a player for
      * @param seed              the seed the robot should use for random operations
-     * @param loader            the classloader to load classes with
+     * @param sandbox           the sandbox to run the player in; it must not
+     *                          have been used by another player
      * @param robotOut          the output to write robot output to (with headers)
+     * @param options           the configuration of the match
      * @throws InstrumentationException if the player doesn't work for some reason
      * @throws RuntimeException if our code fails for some reason
      */
@@ -128,63 +159,30 @@ public class SandboxedRobotPlayer {
                                 CrossPlay crossPlayServer,
                                 RobotController robotController,
                                 int seed,
-                                TeamClassLoaderFactory.Loader loader,
+                                Sandbox sandbox,
                                 OutputStream robotOut,
+                                Config options,
                                 Profiler profiler,
                                 PlayerControlProvider provider)
             throws InstrumentationException {
         this.robotController = robotController;
+        this.options = options;
+        this.outputLabel = provider.getOutputLabel();
         this.crossPlayServer = crossPlayServer;
         this.seed = seed;
         this.terminated = false;
-        this.notifier = new Object();
+        this.execution = PlayerExecution.create(options);
+        this.budget = new BytecodeBudget();
 
-        // Create classloader sandbox
-        individualLoader = loader;
+        // Classloader sandbox, with the monitor already loaded
+        this.sandbox = sandbox;
+        this.individualLoader = sandbox.getLoader();
+        this.library = individualLoader.getLibrary();
 
-        // Load monitor / monitor methods
-        // Used to initialize the RobotMonitor for the player
-        final Method initMethod;
-
-        try {
-            // The loaded, uninstrumented-but-individual RobotMonitor for this player.
-            Class<?> monitor = individualLoader
-                    .loadClass("battlecode.instrumenter.inject.RobotMonitor");
-
-            killMethod = monitor.getMethod("killRobot");
-            setBytecodeLimitMethod = monitor.getMethod("setBytecodeLimit", int.class);
-            getBytecodeNumMethod = monitor.getMethod("getBytecodeNum");
-            pauseMethod = monitor.getMethod("pause");
-            initMethod = monitor.getMethod("init", Pauser.class, Killer.class, int.class, Profiler.class, PlayerControlProvider.class);
-
-            // Note: loading this here also keeps any initialization we do in System
-            // from inflicting its bytecode cost on the player.
-            Class<?> system = individualLoader
-                    .loadClass("battlecode.instrumenter.inject.System");
-
-            this.systemOut = getOut(robotOut);
-            system.getMethod("setSystemOut", PrintStream.class).invoke(null, this.systemOut);
-
-        } catch (ReflectiveOperationException e) {
-            throw new RuntimeException("Couldn't load RobotMonitor", e);
-        }
+        this.systemOut = getOut(robotOut, outputLabel);
 
         // Used to pause the RobotPlayer main thread.
-        final Pauser pauser = () -> {
-            try {
-                synchronized (notifier) {
-                    // Unpause the main thread, which is waiting on the player thread
-                    notifier.notifyAll();
-
-                    // Wait for the main thread to restart us
-                    notifier.wait();
-                }
-            } catch (InterruptedException e) {
-                ErrorReporter.report("RobotPlayer thread interrupted while paused");
-                throw new RobotDeathException();
-                // What to do now?
-            }
-        };
+        final Pauser pauser = this::pausePlayer;
 
         final Killer killer = () -> {
             // Will propagate up the robot's callchain,
@@ -192,23 +190,25 @@ public class SandboxedRobotPlayer {
             throw new RobotDeathException();
         };
 
-        mainThread = new Thread(() -> {
+        this.context = new PlayerContext(pauser, killer, budget, this.seed, profiler, provider);
+        this.context.out = this.systemOut;
+        this.context.properties = systemProperties(options);
+
+        final Runnable body = () -> {
             try {
-                // Init RobotMonitor
-                initMethod.invoke(null, pauser, killer, this.seed, profiler, provider);
                 // Pause immediately
-                pauseMethod.invoke(null);
+                sandbox.pauseMethod.invoke(null);
                 // Run the robot!
                 loadAndRunPlayer(teamName, teamLanguage, PLAYER_CLASS_NAME);
 
                 // If we get here, we've returned from the 'run' method. Tell the user.
                 if (robotController.getLocation() != null) {
-                    System.out.println(robotController.getTeam().toString() + "'s " +
+                    System.out.println(outputLabel + robotController.getTeam().toString() + "'s " +
                         robotController.getID() + " at location " + robotController.getLocation().toString()
                         + " froze in round " +robotController.getRoundNum() +
                         " because it returned from its run() method!");
                 } else {
-                    System.out.println(robotController.getTeam().toString() + "'s " +
+                    System.out.println(outputLabel + robotController.getTeam().toString() + "'s " +
                         robotController.getID() + " that has not spawned yet " 
                         + " froze in round " +robotController.getRoundNum() +
                         " because it returned from its run() method!");
@@ -240,25 +240,58 @@ public class SandboxedRobotPlayer {
                 if (profiler != null) {
                     profiler.exitOpenMethods();
                 }
-
-                // Unpause the main thread, which is waiting on the player thread.
-                synchronized (notifier) {
-                    notifier.notifyAll();
-                }
             }
-        }, teamName + "." + PLAYER_CLASS_NAME + " #"+ robotController.getID());
+        };
 
 
         // Wait for thread to tell us it's ready
+        // Robots can spawn during another robot's turn, so put back
+        // whichever context was active when we're done
+        final PlayerContext previous = library.getActive();
+        library.setActive(context);
         try {
-            synchronized (notifier) {
-                // Doesn't do anything besides initialize the sandbox, since thread pauses immediately
-                mainThread.start();
+            // Doesn't do anything besides initialize the sandbox, since thread pauses immediately
+            execution.start(teamName + "." + PLAYER_CLASS_NAME + " #" + robotController.getID(), body);
+        } catch (InterruptedException e) {
+            throw new RuntimeException("Unexpected interruption initializing sandbox", e);
+        } finally {
+            library.setActive(previous);
+        }
+    }
 
-                notifier.wait();
+    /**
+     * Pauses the player, from its own code. A player can't always be
+     * paused in a class initializer: the continuation or virtual thread
+     * it runs on is pinned there, and with a shared library a teammate
+     * could need the class being initialized. It then keeps running on the
+     * bytecodes of its next turn instead.
+     */
+    private void pausePlayer() {
+        final boolean paused;
+        try {
+            if (context.classInitializers > 0 && !execution.canPauseInClassInitializer()
+                    || context.libraryClassInitializers > 0 && library != individualLoader) {
+                paused = false;
+            } else {
+                // Unpause the main thread, which is waiting on the player thread,
+                // and wait for it to restart us
+                paused = execution.pause();
             }
         } catch (InterruptedException e) {
-            throw new RuntimeException("Unexpected interruption initializing sandbox", e);
+            ErrorReporter.report("RobotPlayer thread interrupted while paused");
+            throw new RobotDeathException();
+            // What to do now?
+        }
+
+        if (!paused && ++owedTurns > MAX_OWED_TURNS) {
+            // Only pausing gives the engine control back, so a player stuck
+            // in a class initializer would hang the match
+            System.out.println(outputLabel + robotController.getTeam().toString() + "'s " +
+                    robotController.getID() + " was killed in round " + robotController.getRoundNum() +
+                    " for running over " + MAX_OWED_TURNS + " turns without being able to pause");
+            context.shouldDie = true;
+            context.updateFastPath();
+            throw new RobotDeathException();
         }
     }
 
@@ -317,7 +350,7 @@ public class SandboxedRobotPlayer {
                 throw new NonJavaBotException(e.getMessage());
             }
 
-            this.pauseMethod.invoke(null);
+            sandbox.pauseMethod.invoke(null);
         }
     }
 
@@ -327,11 +360,7 @@ public class SandboxedRobotPlayer {
      * @param limit the new limit
      */
     public void setBytecodeLimit(int limit) {
-        try {
-            setBytecodeLimitMethod.invoke(null, limit);
-        } catch (ReflectiveOperationException e) {
-            ErrorReporter.report(e, true);
-        }
+        budget.limit = limit;
     }
 
     /**
@@ -343,25 +372,34 @@ public class SandboxedRobotPlayer {
             return; // the player screwed up but they're not gonna lose the robot hehehe
             //throw new RuntimeException("Step called after robot killed");
         }
+        // The robot already used this turn's bytecodes in an earlier step
+        skippedStep = owedTurns > 0;
+        if (skippedStep) {
+            owedTurns--;
+            return;
+        }
+
         // Update the robot's information
         updateOut();
 
+        // A robot can die during another robot's turn, so put back
+        // whichever context was active when we're done
+        final PlayerContext previous = library.getActive();
+        library.setActive(context);
         try {
-            synchronized (notifier) {
-                // We are now running the robot!
-                running = true;
+            // We are now running the robot!
+            running = true;
 
-                // Unpause the robot's thread
-                notifier.notifyAll();
+            // Unpause the robot's thread, and pause this thread until the
+            // robot ends turn or dies
+            execution.resume();
 
-                // Pause this thread until the robot ends turn or dies
-                notifier.wait();
-
-                // Main thread reactivated: no longer running.
-                running = false;
-            }
+            // Main thread reactivated: no longer running.
+            running = false;
         } catch (InterruptedException e) {
             throw new RuntimeException("Unexpected interruption", e);
+        } finally {
+            library.setActive(previous);
         }
     }
 
@@ -387,22 +425,16 @@ public class SandboxedRobotPlayer {
             // execute zero-cost actions after "dying", like (maybe?) returning
             // from run(), which could issue nonsensical warnings. However, it's
             // the best solution I can think of.
-            try {
-                killMethod.invoke(null);
-            } catch (ReflectiveOperationException e) {
-                ErrorReporter.report(e, true);
-            }
+            context.shouldDie = true;
+            context.updateFastPath();
         } else {
             // We're not running.
             // Set the "shouldDie" flag and then step to finish the job.
-
-            try {
-                killMethod.invoke(null);
-            } catch (ReflectiveOperationException e) {
-                ErrorReporter.report(e, true);
-            }
+            context.shouldDie = true;
+            context.updateFastPath();
 
             // Step to make the robot die.
+            owedTurns = 0;
             step();
         }
     }
@@ -411,12 +443,16 @@ public class SandboxedRobotPlayer {
      * @return the bytecodes used by the player during the most recent step() call.
      */
     public int getBytecodesUsed() {
-        try {
-            return (Integer) getBytecodeNumMethod.invoke(null);
-        } catch (ReflectiveOperationException e) {
-            ErrorReporter.report(e, true);
-            return 0;
+        if (skippedStep) {
+            return budget.limit;
         }
+        if (!terminated) {
+            // The monitor reported what's left when the robot paused
+            return budget.getUsed();
+        }
+
+        // The robot's code ended some other way; ask the monitor's state directly
+        return context.getBytecodeNum();
     }
 
     /**
@@ -446,9 +482,39 @@ public class SandboxedRobotPlayer {
         void kill();
     }
 
-    public PrintStream getOut(OutputStream wrapped) {
-        Config options = Config.getGlobalConfig();
+    /**
+     * @param options the configuration of the match
+     * @return the system properties the player sees: nothing about the
+     *         machine it runs on, and the match's bc.testing options
+     */
+    private static Properties systemProperties(Config options) {
+        final Properties props = new Properties();
+        props.setProperty("java.version", "who knows?");
+        props.setProperty("java.vendor", "who knows?");
+        props.setProperty("java.vendor.url", "who knows?");
+        props.setProperty("java.home", "who knows?");
+        props.setProperty("java.class.version", "who knows?");
+        props.setProperty("java.class.path", "who knows?");
+        props.setProperty("os.name", "who knows?");
+        props.setProperty("os.arch", "who knows?");
+        props.setProperty("os.version", "who knows?");
+        props.setProperty("file.separator", "who knows?");
+        props.setProperty("path.separator", "who knows?");
+        props.setProperty("line.separator", "who knows?");
+        props.setProperty("user.name", "who knows?");
+        props.setProperty("user.home", "who knows?");
+        props.setProperty("user.dir", "who knows?");
+
+        // Copy bc.testing stuff
+        for (String key : options.getKeys()) {
+            if (key.startsWith("bc.testing")) {
+                props.put(key, options.get(key));
+            }
+        }
+        return props;
+    }
 
+    public PrintStream getOut(OutputStream wrapped, String label) {
         if (robotController.getTeam() == Team.A
                 && options.getBoolean("bc.engine.silence-a")
                 || robotController.getTeam() == Team.B
@@ -459,7 +525,7 @@ public class SandboxedRobotPlayer {
             try {
                 return new RoboPrintStream(wrapped, options.getBoolean(
                         "bc.server.robot-player-to-system-out"
-                ), options.getInt("bc.server.robot-player-replay-file-per-team-limit-bytes"));
+                ), options.getInt("bc.server.robot-player-replay-file-per-team-limit-bytes"), label);
             } catch (UnsupportedEncodingException e) {
                 throw new RuntimeException("UTF-8 isn't supported on this system??", e);
             }
@@ -2,20 +2,31 @@ package battlecode.instrumenter;
 
 import battlecode.instrumenter.bytecode.ClassReferenceUtil;
 import battlecode.instrumenter.bytecode.InstrumentingClassVisitor;
-import battlecode.server.Config;
+import battlecode.server.ErrorReporter;
+import battlecode.util.ContentHash;
 import org.objectweb.asm.ClassReader;
 import org.objectweb.asm.ClassVisitor;
 import org.objectweb.asm.ClassWriter;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
 import java.net.MalformedURLException;
 import java.net.URISyntaxException;
 import java.net.URL;
 import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.jar.JarFile;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
 
 import static battlecode.instrumenter.InstrumentationException.Type.ILLEGAL;
 import static battlecode.instrumenter.InstrumentationException.Type.MISSING;
@@ -77,7 +88,9 @@ public final class TeamClassLoaderFactory {
 
     /**
      * Classes that don't need to be instrumented but do need to be reloaded
-     * for every individual player.
+     * for every individual player, or for every library when a team's
+     * robots share one. Their per-robot state lives in the active
+     * PlayerContext.
      */
     protected final static Set<String> alwaysRedefine = Collections.unmodifiableSet(new HashSet<>(Arrays.asList(
             "battlecode.instrumenter.inject.ObjectMethods",
@@ -87,6 +100,15 @@ public final class TeamClassLoaderFactory {
             "battlecode.common.Clock"
     )));
 
+    /**
+     * Instrumented library classes, shared by every team that doesn't
+     * shadow them (see sharesLibraryClasses), in every match; one map for
+     * unprofiled and one for profiled teams. Like instrumentedClasses these
+     * are bytes, so each library still defines its own classes.
+     */
+    private final static Map<String, byte[]> SHARED_LIBRARY_CLASSES = new ConcurrentHashMap<>();
+    private final static Map<String, byte[]> SHARED_PROFILED_LIBRARY_CLASSES = new ConcurrentHashMap<>();
+
     /**
      * We use this to find resources from the player URL.
      *
@@ -100,19 +122,66 @@ public final class TeamClassLoaderFactory {
      * The values are byte arrays, not Classes, because each instance of
      * InstrumentingClassLoader should define its own class, even if another
      * InstrumentingClassLoader has already loaded a class from the same class file.
+     *
+     * Concurrent, since sandboxes are prepared in the background while
+     * players load classes.
      */
     private final Map<String, byte[]> instrumentedClasses;
 
     /**
      * If this team has an error, don't bother trying to cache again.
      */
-    private boolean hasError;
+    private volatile boolean hasError;
 
     /**
      * The ClassReferenceUtil used by this cache.
      */
     private final ClassReferenceUtil refUtil;
 
+    /**
+     * Whether debug methods in team classes should be run.
+     */
+    private final boolean debugMethodsEnabled;
+
+    /**
+     * Whether all of the team's robots share one library, rather than each
+     * getting its own.
+     */
+    private final boolean shareLibrary;
+
+    /**
+     * The library shared by the team's robots, if they share one; created
+     * by the first loader that needs it.
+     */
+    private Loader sharedLibrary;
+
+    /**
+     * The on-disk cache of instrumented classes, or null if there isn't one.
+     */
+    private final InstrumentationCache diskCache;
+
+    /**
+     * The file the team's classes are loaded from, for hashing.
+     */
+    private final URL teamURL;
+
+    /**
+     * The scopes of the team's entries in the disk cache (see
+     * InstrumentationCache.keyFor); computed when first needed.
+     */
+    private String teamScope, libraryScope;
+
+    /**
+     * Whether preinstrument() has been called.
+     */
+    private boolean preinstrumented;
+
+    /**
+     * Whether library classes are instrumented the same for this team as
+     * for any other; computed when first needed.
+     */
+    private Boolean sharesLibraryClasses;
+
     /**
      * Create a cache for classes loaded from a URL (or local file).
      * The URL can point to a jar file or a directory containing class
@@ -121,8 +190,41 @@ public final class TeamClassLoaderFactory {
      * Resources will be searched for at the URL and then locally.
      *
      * @param classURL the URL to load clases from
+     * @param debugMethodsEnabled whether debug methods in team classes should be run
+     */
+    public TeamClassLoaderFactory(final String classURL, final boolean debugMethodsEnabled) {
+        this(classURL, debugMethodsEnabled, false);
+    }
+
+    /**
+     * Create a cache for classes loaded from a URL (or local file).
+     *
+     * @param classURL the URL to load clases from
+     * @param debugMethodsEnabled whether debug methods in team classes should be run
+     * @param shareLibrary whether the team's robots should share one copy
+     *                     of the library classes they use (see Loader)
      */
-    public TeamClassLoaderFactory(final String classURL) {
+    public TeamClassLoaderFactory(final String classURL, final boolean debugMethodsEnabled,
+                                  final boolean shareLibrary) {
+        this(classURL, debugMethodsEnabled, shareLibrary, null);
+    }
+
+    /**
+     * Create a cache for classes loaded from a URL (or local file).
+     *
+     * @param classURL the URL to load clases from
+     * @param debugMethodsEnabled whether debug methods in team classes should be run
+     * @param shareLibrary whether the team's robots should share one copy
+     *                     of the library classes they use (see Loader)
+     * @param diskCache the on-disk cache to look for instrumented classes in
+     *                  and add them to, or null to always instrument them
+     */
+    public TeamClassLoaderFactory(final String classURL, final boolean debugMethodsEnabled,
+                                  final boolean shareLibrary, final InstrumentationCache diskCache) {
+        this.debugMethodsEnabled = debugMethodsEnabled;
+        this.shareLibrary = shareLibrary;
+        this.diskCache = diskCache;
+
         URL url;
         try {
             url = getFilesystemURL(classURL);
@@ -131,8 +233,10 @@ public final class TeamClassLoaderFactory {
             this.hasError = true;
             this.instrumentedClasses = null;
             this.refUtil = null;
+            this.teamURL = null;
             return;
         }
+        this.teamURL = url;
 
         this.teamResourceLookup = new URLClassLoader(
                 new URL[] { url }
@@ -147,7 +251,7 @@ public final class TeamClassLoaderFactory {
                 return findResource(name);
             }
         };
-        this.instrumentedClasses = new HashMap<>();
+        this.instrumentedClasses = new ConcurrentHashMap<>();
         this.hasError = false;
         this.refUtil = new ClassReferenceUtil(this);
     }
@@ -157,7 +261,18 @@ public final class TeamClassLoaderFactory {
      * @return
      */
     public Loader createLoader(boolean profilerEnabled) {
-        return new Loader(profilerEnabled);
+        return new Loader(profilerEnabled, shareLibrary ? getSharedLibrary(profilerEnabled) : null);
+    }
+
+    /**
+     * @param profilerEnabled whether the team's robots are profiled
+     * @return the library shared by the team's robots
+     */
+    private synchronized Loader getSharedLibrary(boolean profilerEnabled) {
+        if (sharedLibrary == null) {
+            sharedLibrary = new Loader(profilerEnabled, null);
+        }
+        return sharedLibrary;
     }
 
     /**
@@ -185,6 +300,230 @@ public final class TeamClassLoaderFactory {
         this.instrumentedClasses.put(className, classBytes);
     }
 
+    /**
+     * Computes the disk cache key of a class, if the classes are cached on
+     * disk.
+     *
+     * Team classes are instrumented differently depending on the team's
+     * other classes, so their keys include the hash of the whole team.
+     * Library classes usually share keys with every other team's (see
+     * sharesLibraryClasses).
+     *
+     * @param className       the name of the class
+     * @param original        the class file before instrumentation
+     * @param team            whether the class is one of the team's
+     * @param debugMethods    whether debug methods run
+     * @param profilerEnabled whether the profiler is enabled
+     * @return the key, or null if classes aren't cached on disk
+     */
+    private String diskCacheKey(String className, byte[] original, boolean team,
+                                boolean debugMethods, boolean profilerEnabled) {
+        if (diskCache == null || !computeScopes()) {
+            return null;
+        }
+        return diskCache.keyFor(team ? teamScope : libraryScope, className, original,
+                team, debugMethods, profilerEnabled);
+    }
+
+    /**
+     * @return whether the team could be hashed; if not, nothing is cached
+     */
+    private synchronized boolean computeScopes() {
+        if (teamScope == null) {
+            try {
+                Path path = Paths.get(teamURL.toURI());
+                teamScope = "team " + ContentHash.ofPath(path.toString());
+                libraryScope = sharesLibraryClasses() ? "library" : teamScope;
+            } catch (IOException | URISyntaxException e) {
+                ErrorReporter.warn("Not caching instrumented classes, can't hash " + teamURL + ": " + e.getMessage());
+                teamScope = libraryScope = "";
+            }
+        }
+        return !teamScope.isEmpty();
+    }
+
+    /**
+     * Library classes are instrumented differently for a team that has its
+     * own copy of a class they reference, which is left to the team's copy.
+     * Library classes only reference classes on the system classpath, so a
+     * team that has none of those gets exactly the same library as any
+     * other, and can share it with them. (The team's own classes being on
+     * the classpath, as the example players are when run from gradle,
+     * doesn't count; library classes don't reference them.)
+     *
+     * @return whether the team's library classes can be shared with other
+     *         teams
+     */
+    private synchronized boolean sharesLibraryClasses() {
+        if (sharesLibraryClasses == null) {
+            boolean shares;
+            try {
+                shares = true;
+                for (String classFile : teamClassFiles(Paths.get(teamURL.toURI()))) {
+                    URL normal = getNormalURL(classFile);
+                    if (normal != null && !normal.toString().equals(String.valueOf(getTeamURL(classFile)))) {
+                        shares = false;
+                        break;
+                    }
+                }
+            } catch (IOException | URISyntaxException e) {
+                ErrorReporter.warn("Can't list the classes in " + teamURL + ": " + e.getMessage());
+                shares = false;
+            }
+            sharesLibraryClasses = shares;
+        }
+        return sharesLibraryClasses;
+    }
+
+    /**
+     * @param profilerEnabled whether the team's robots are profiled
+     * @return the instrumented library classes the team shares with other
+     *         teams, or null if it can't share them
+     */
+    private Map<String, byte[]> sharedLibraryClasses(boolean profilerEnabled) {
+        if (!sharesLibraryClasses()) {
+            return null;
+        }
+        return profilerEnabled ? SHARED_PROFILED_LIBRARY_CLASSES : SHARED_LIBRARY_CLASSES;
+    }
+
+    /**
+     * @param path the jar or directory the team is loaded from
+     * @return the class files in it, in the form java/lang/Double.class
+     */
+    private static List<String> teamClassFiles(Path path) throws IOException {
+        List<String> names = new ArrayList<>();
+        if (Files.isDirectory(path)) {
+            try (Stream<Path> walk = Files.walk(path)) {
+                walk.filter(Files::isRegularFile)
+                        .forEach(file -> names.add(path.relativize(file).toString().replace(File.separatorChar, '/')));
+            }
+        } else {
+            try (JarFile jar = new JarFile(path.toFile())) {
+                jar.stream().forEach(entry -> names.add(entry.getName()));
+            }
+        }
+        names.removeIf(name -> !name.endsWith(".class"));
+        return names;
+    }
+
+    /**
+     * Instruments all of the team's classes, and every library class they
+     * reference (and so on), in parallel on the common fork-join pool, so
+     * that robots find them already instrumented instead of instrumenting
+     * them on the engine thread when they first spawn. Blocks until done;
+     * only the first call does anything.
+     *
+     * Classes that can't be instrumented are skipped, and fail the way they
+     * always have when a robot loads them.
+     *
+     * @param profilerEnabled whether the team's robots are profiled
+     */
+    public void preinstrument(boolean profilerEnabled) {
+        synchronized (this) {
+            if (preinstrumented || hasError) {
+                return;
+            }
+            preinstrumented = true;
+        }
+
+        List<String> classFiles;
+        try {
+            classFiles = teamClassFiles(Paths.get(teamURL.toURI()));
+        } catch (IOException | URISyntaxException e) {
+            ErrorReporter.warn("Can't list the classes in " + teamURL + ": " + e.getMessage());
+            return;
+        }
+
+        final Loader loader = new Loader(profilerEnabled, null);
+        final Set<String> seen = ConcurrentHashMap.newKeySet();
+        final List<Preinstrumentation> tasks = new ArrayList<>();
+        for (String classFile : classFiles) {
+            String name = classFile.substring(0, classFile.length() - ".class".length()).replace('/', '.');
+            if (seen.add(name)) {
+                tasks.add(new Preinstrumentation(loader, seen, name, true));
+            }
+        }
+
+        ForkJoinPool.commonPool().invoke(new RecursiveAction() {
+            @Override
+            protected void compute() {
+                invokeAll(tasks);
+            }
+        });
+    }
+
+    /**
+     * Instruments one class for preinstrument(), then the library classes
+     * it references that nobody has gotten to yet.
+     */
+    private final class Preinstrumentation extends RecursiveAction {
+        private final Loader loader;
+        private final Set<String> seen;
+        private final String name;
+        private final boolean team;
+
+        Preinstrumentation(Loader loader, Set<String> seen, String name, boolean team) {
+            this.loader = loader;
+            this.seen = seen;
+            this.name = name;
+            this.team = team;
+        }
+
+        @Override
+        protected void compute() {
+            byte[] classBytes = getCached(name);
+            if (classBytes == null) {
+                try {
+                    if (team) {
+                        assertAllowedPackage(name);
+                        classBytes = loader.instrumentCached(name, teamBytes(name), true, debugMethodsEnabled);
+                    } else {
+                        classBytes = loader.instrumentLibrary(name);
+                    }
+                } catch (RuntimeException e) {
+                    // Leave it to whichever robot loads it to fail
+                    return;
+                }
+                instrumentedClasses.putIfAbsent(name, classBytes);
+            }
+
+            List<Preinstrumentation> references = new ArrayList<>();
+            for (String reference : referencedLibraryClasses(classBytes)) {
+                // Robots would load these as team classes
+                if (!hasTeamClass(reference) && seen.add(reference)) {
+                    references.add(new Preinstrumentation(loader, seen, reference, false));
+                }
+            }
+            invokeAll(references);
+        }
+    }
+
+    private static final Pattern LIBRARY_CLASS = Pattern.compile("instrumented/[\\w/$]+");
+
+    /**
+     * @param classBytes an instrumented class file
+     * @return the instrumented library classes it references anywhere in its
+     *         constant pool, including in descriptors and signatures
+     */
+    private static Set<String> referencedLibraryClasses(byte[] classBytes) {
+        Set<String> references = new HashSet<>();
+        ClassReader reader = new ClassReader(classBytes);
+        for (int i = 1; i < reader.getItemCount(); i++) {
+            int offset = reader.getItem(i);
+            // Items point just past their tag; only look at CONSTANT_Utf8
+            if (offset == 0 || reader.readByte(offset - 1) != 1) {
+                continue;
+            }
+            String value = new String(classBytes, offset + 2, reader.readUnsignedShort(offset), StandardCharsets.UTF_8);
+            Matcher matcher = LIBRARY_CLASS.matcher(value);
+            while (matcher.find()) {
+                references.add(matcher.group().replace('/', '.'));
+            }
+        }
+        return references;
+    }
+
     /**
      * @return whether the team is known to have errors
      */
@@ -227,10 +566,20 @@ public final class TeamClassLoaderFactory {
      * @return a Reader for the class
      */
     public static ClassReader normalReader(String className) throws InstrumentationException {
+        return new ClassReader(normalBytes(className));
+    }
+
+    /**
+     * Attempt to read a class file from the system classloader
+     *
+     * @param className the name of the class
+     * @return the contents of the class file
+     */
+    public static byte[] normalBytes(String className) throws InstrumentationException {
         URL resURL = getNormalURL(toResourceName(className));
         if (resURL != null) {
-            try {
-                return new ClassReader(resURL.openStream());
+            try (InputStream in = resURL.openStream()) {
+                return in.readAllBytes();
             } catch (IOException e) {
                 throw new InstrumentationException(MISSING, "Can't load class "+className+" on the system classpath", e);
             }
@@ -246,10 +595,21 @@ public final class TeamClassLoaderFactory {
      * @throws InstrumentationException if the class cannot be read
      */
     public ClassReader teamReader(String className) throws InstrumentationException {
+        return new ClassReader(teamBytes(className));
+    }
+
+    /**
+     * Attempt to read a class file from the team classloader
+     *
+     * @param className the name of the class
+     * @return the contents of the class file
+     * @throws InstrumentationException if the class cannot be read
+     */
+    public byte[] teamBytes(String className) throws InstrumentationException {
         URL resURL = getTeamURL(toResourceName(className));
         if (resURL != null) {
-            try {
-                return new ClassReader(resURL.openStream());
+            try (InputStream in = resURL.openStream()) {
+                return in.readAllBytes();
             } catch (IOException e) {
                 throw new InstrumentationException(MISSING, "Can't load class "+className+" from player classpath", e);
             }
@@ -347,8 +707,8 @@ public final class TeamClassLoaderFactory {
      *       redefine that byte[], redefine it as a Class<?>, return it.
      *     If it is special, load it as a byte[], cache the byte[], load the byte[] as a class.
      *     If it is in the team's code blob (a .jar or folder),
-     *       load it as a byte[], instrument the byte[], cache the instrumented byte[],
-     *       load the instrumented byte[] as a class.
+     *       load it as a byte[], instrument the byte[] (unless the disk cache has it
+     *       already), cache the instrumented byte[], load the instrumented byte[] as a class.
      *     If it exists on the system classpath, load it.
      *
      * This algorithm is safe: player code can *load* anything on the system classpath, but
@@ -356,6 +716,13 @@ public final class TeamClassLoaderFactory {
      *
      * This algorithm is performed lazily and recursively as the player runs.
      * When this Loader is GC'd, it's defined classes will also be GC'd.
+     *
+     * The instrumented library classes (instrumented.java.util and friends),
+     * RobotMonitor and the other injected classes that keep their state in a
+     * PlayerContext make up a robot's "library". Normally a loader is its own
+     * library, so each robot gets its own copy of everything. If the team
+     * shares a library, robots' loaders leave those classes to one loader for
+     * the whole team and only define the team's classes and System themselves.
      */
     public class Loader extends ClassLoader {
 
@@ -369,12 +736,26 @@ public final class TeamClassLoaderFactory {
          */
         private final boolean profilerEnabled;
 
+        /**
+         * The loader that defines this loader's library classes; possibly
+         * this loader.
+         */
+        private final Loader library;
+
+        /**
+         * The context of the robot this library is running, if this loader
+         * is a library.
+         */
+        private PlayerContext active;
+
         /**
          * Create a loader.
          *
+         * @param library the library the loader's robot shares with others,
+         *                or null to be its own library
          * @throws InstrumentationException if we fail to create a loader for some reason.
          */
-        private Loader(boolean profilerEnabled) throws InstrumentationException {
+        private Loader(boolean profilerEnabled, Loader library) throws InstrumentationException {
 
             // use our classloader as a parent, rather than the default
             // system classloader
@@ -397,6 +778,31 @@ public final class TeamClassLoaderFactory {
 
             this.loadedCache = new HashMap<>();
             this.profilerEnabled = profilerEnabled;
+            this.library = library == null ? this : library;
+        }
+
+        /**
+         * @return the loader that defines this loader's library classes
+         */
+        public Loader getLibrary() {
+            return library;
+        }
+
+        /**
+         * @return the context of the robot the library is running; only
+         *         meaningful for a library
+         */
+        public PlayerContext getActive() {
+            return active;
+        }
+
+        /**
+         * Makes a robot's context the one the library's classes work on.
+         *
+         * @param context the context of the robot about to run
+         */
+        public void setActive(PlayerContext context) {
+            this.active = context;
         }
 
         public TeamClassLoaderFactory getFactory() {
@@ -407,8 +813,10 @@ public final class TeamClassLoaderFactory {
             return TeamClassLoaderFactory.this.refUtil;
         }
 
+        // Synchronized because a shared library is used by every robot on the
+        // team, and sandboxes for them are prepared in the background
         @Override
-        protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+        protected synchronized Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
             if (TeamClassLoaderFactory.this.getError()) {
                 throw new InstrumentationException(ILLEGAL, "Team is known to have errors");
             }
@@ -422,7 +830,10 @@ public final class TeamClassLoaderFactory {
             // this is the class we'll return
             Class<?> finishedClass;
 
-            if (TeamClassLoaderFactory.this.hasCached(name)) {
+            if (library != this && (alwaysRedefine.contains(name) || name.startsWith("instrumented."))) {
+                // Shared with the rest of the team.
+                finishedClass = library.loadClass(name, false);
+            } else if (TeamClassLoaderFactory.this.hasCached(name)) {
                 byte[] classBytes = TeamClassLoaderFactory.this.getCached(name);
                 finishedClass = defineClass(null, classBytes, 0, classBytes.length);
             } else if (alwaysRedefine.contains(name)) {
@@ -451,10 +862,11 @@ public final class TeamClassLoaderFactory {
 
                 final byte[] classBytes;
                 try {
-                    classBytes = instrument(
-                            TeamClassLoaderFactory.this.teamReader(name),
+                    classBytes = instrumentCached(
+                            name,
+                            TeamClassLoaderFactory.this.teamBytes(name),
                             true,
-                            Config.getGlobalConfig().getBoolean("bc.engine.debug-methods")
+                            TeamClassLoaderFactory.this.debugMethodsEnabled
                     );
                 } catch (InstrumentationException e) {
                     TeamClassLoaderFactory.this.hasError = true;
@@ -463,16 +875,14 @@ public final class TeamClassLoaderFactory {
 
                 finishedClass = saveAndDefineClass(name, classBytes);
             } else if (name.startsWith("instrumented.")) {
-                // Each robot has its own version of java.util classes.
+                // Each library has its own version of java.util classes.
                 // We don't check them for disallowed or debug methods.
-                // If permgen space becomes a problem, we could make it so
-                // that only one copy of these classes is loaded, but
-                // we would need to modify ObjectHashCode.
+                // ObjectMethods hands out hash codes from the running
+                // robot's context, so they stay per robot even when the
+                // library is shared.
                 byte[] classBytes;
                 try {
-                    classBytes = instrument(
-                            TeamClassLoaderFactory.normalReader(name),
-                            false, false);
+                    classBytes = instrumentLibrary(name);
                 } catch (InstrumentationException ie) {
                     // TeamClassLoaderFactory.this.hasError = true;
                     throw ie;
@@ -518,6 +928,61 @@ public final class TeamClassLoaderFactory {
 
         }
 
+        /**
+         * Instruments a class, or finds it already instrumented in the disk
+         * cache.
+         *
+         * @param name     the name of the class
+         * @param original the class file to instrument
+         * @param team     whether the class is one of the team's, which are
+         *                 checked for disallowed classes
+         * @param debugMethodsEnabled whether debug methods should run
+         * @return the instrumented class file
+         */
+        private byte[] instrumentCached(String name, byte[] original, boolean team,
+                                        boolean debugMethodsEnabled) throws InstrumentationException {
+            final String key = diskCacheKey(name, original, team, debugMethodsEnabled, profilerEnabled);
+            if (key != null) {
+                byte[] cached = diskCache.get(key);
+                if (cached != null) {
+                    return cached;
+                }
+            }
+
+            byte[] classBytes = instrument(new ClassReader(original), team, debugMethodsEnabled);
+            if (key != null) {
+                diskCache.put(key, classBytes);
+            }
+            return classBytes;
+        }
+
+        /**
+         * Instruments a library class, or finds it already instrumented for
+         * another team.
+         *
+         * @param name the name of the class, starting with instrumented.
+         * @return the instrumented class file
+         */
+        private byte[] instrumentLibrary(String name) throws InstrumentationException {
+            final Map<String, byte[]> shared = sharedLibraryClasses(profilerEnabled);
+            if (shared != null) {
+                byte[] classBytes = shared.get(name);
+                if (classBytes != null) {
+                    return classBytes;
+                }
+            }
+
+            byte[] classBytes = instrumentCached(name, normalBytes(name), false, false);
+            if (shared != null) {
+                // Whoever got there first; the bytes are the same
+                byte[] existing = shared.putIfAbsent(name, classBytes);
+                if (existing != null) {
+                    return existing;
+                }
+            }
+            return classBytes;
+        }
+
         public byte[] instrument(ClassReader reader,
                                  boolean checkDisallowed,
                                  boolean debugMethodsEnabled) throws InstrumentationException {
@@ -0,0 +1,81 @@
+package battlecode.instrumenter;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Runs a player on its own thread, handing control back and forth with a
+ * {@link TurnHandoff}. Platform threads are reused by later players once
+ * their player finishes.
+ */
+final class ThreadPlayerExecution implements PlayerExecution {
+
+    private static final String IDLE_THREAD_NAME = "robot-player-idle";
+
+    /**
+     * Platform threads are expensive to start, so they're kept around for
+     * the next player once theirs dies.
+     */
+    private static final ExecutorService PLATFORM_THREADS = Executors.newCachedThreadPool(r -> {
+        Thread t = new Thread(r, IDLE_THREAD_NAME);
+        t.setDaemon(true);
+        return t;
+    });
+
+    private final boolean virtual;
+    private final TurnHandoff handoff;
+
+    /**
+     * @param virtual whether to use a virtual thread
+     * @param spins   the spin budget of the handoff
+     */
+    ThreadPlayerExecution(boolean virtual, int spins) {
+        this.virtual = virtual;
+        this.handoff = new TurnHandoff(spins);
+    }
+
+    @Override
+    public void start(String name, Runnable body) throws InterruptedException {
+        final Runnable robot = () -> {
+            try {
+                body.run();
+            } finally {
+                // Unpause the main thread, which is waiting on the player thread.
+                handoff.finish();
+            }
+        };
+
+        if (virtual) {
+            handoff.start(Thread.ofVirtual().name(name)::start, robot);
+        } else {
+            handoff.start(PLATFORM_THREADS, () -> {
+                Thread.currentThread().setName(name);
+                try {
+                    robot.run();
+                } finally {
+                    // Don't leave anything behind for the next player
+                    Thread.interrupted();
+                    Thread.currentThread().setName(IDLE_THREAD_NAME);
+                }
+            });
+        }
+    }
+
+    @Override
+    public void resume() throws InterruptedException {
+        handoff.runRobot();
+    }
+
+    @Override
+    public boolean pause() throws InterruptedException {
+        handoff.yieldToEngine();
+        return true;
+    }
+
+    @Override
+    public boolean canPauseInClassInitializer() {
+        // A virtual thread parked in a class initializer keeps its carrier
+        // thread, which the next player may need to run at all
+        return !virtual;
+    }
+}
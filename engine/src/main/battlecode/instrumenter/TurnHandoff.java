@@ -0,0 +1,153 @@
+package battlecode.instrumenter;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Passes control back and forth between the engine thread and a robot
+ * player's thread, so that exactly one of them is running at a time.
+ *
+ * Whose turn it is lives in a single volatile field, and the side that is
+ * waiting parks until its turn comes round. Nothing here holds a monitor
+ * while waiting, so a robot thread that is virtual doesn't pin its carrier
+ * the way Object.wait() would.
+ *
+ * Robot turns are often short, so the engine spins for a while before
+ * parking: if the robot yields within the spin budget, the engine carries
+ * on without ever being descheduled, and the robot skips waking it. The
+ * robot itself always parks straight away, since it waits for every other
+ * robot's turn before its next one.
+ *
+ * Only the engine thread may call {@link #start} and {@link #runRobot}, and
+ * only the robot thread {@link #yieldToEngine} and {@link #finish}.
+ */
+public final class TurnHandoff {
+
+    /**
+     * Whether the robot thread should be running. The robot runs first,
+     * until it pauses for the first time.
+     */
+    private volatile boolean robotTurn = true;
+
+    /**
+     * Whether the engine thread is parked, or about to park, and so needs
+     * waking when its turn comes.
+     */
+    private volatile boolean engineParked;
+
+    /**
+     * How many times the engine checks for its turn before parking.
+     */
+    private final int spins;
+
+    /**
+     * The thread that most recently handed control to the robot.
+     */
+    private volatile Thread engineThread;
+
+    /**
+     * The robot player's thread.
+     */
+    private volatile Thread robotThread;
+
+    /**
+     * Creates a handoff where the engine parks as soon as it has to wait.
+     */
+    public TurnHandoff() {
+        this(0);
+    }
+
+    /**
+     * @param spins how many times the engine checks for its turn before
+     *              parking; ignored on single-CPU machines
+     */
+    public TurnHandoff(int spins) {
+        // With one CPU the robot can't run while we spin
+        this.spins = Runtime.getRuntime().availableProcessors() > 1 ? Math.max(spins, 0) : 0;
+    }
+
+    /**
+     * Starts running the robot's code on a thread from the given launcher,
+     * and waits until it yields or finishes.
+     *
+     * @param launcher runs the robot's code on some thread; for instance,
+     *                 Thread.Builder::start or a thread pool
+     * @param robot    the robot's code
+     * @throws InterruptedException if the engine thread is interrupted
+     */
+    public void start(Executor launcher, Runnable robot) throws InterruptedException {
+        this.engineThread = Thread.currentThread();
+        this.robotTurn = true;
+        launcher.execute(() -> {
+            this.robotThread = Thread.currentThread();
+            robot.run();
+        });
+        awaitEngineTurn();
+    }
+
+    /**
+     * Lets the robot thread run, and waits until it yields or finishes.
+     *
+     * @throws InterruptedException if the engine thread is interrupted
+     */
+    public void runRobot() throws InterruptedException {
+        this.engineThread = Thread.currentThread();
+        this.robotTurn = true;
+        LockSupport.unpark(robotThread);
+        awaitEngineTurn();
+    }
+
+    /**
+     * Hands control back to the engine, and waits until it is handed back.
+     *
+     * @throws InterruptedException if the robot thread is interrupted
+     */
+    public void yieldToEngine() throws InterruptedException {
+        this.robotTurn = false;
+        wakeEngine();
+        while (!robotTurn) {
+            LockSupport.park(this);
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+        }
+    }
+
+    /**
+     * Hands control back to the engine for good, as the robot thread exits.
+     */
+    public void finish() {
+        this.robotTurn = false;
+        wakeEngine();
+    }
+
+    private void wakeEngine() {
+        // Pairs with the write to engineParked and read of robotTurn in
+        // awaitEngineTurn: either the engine sees its turn, or we see that
+        // it may be parked.
+        if (engineParked) {
+            LockSupport.unpark(engineThread);
+        }
+    }
+
+    private void awaitEngineTurn() throws InterruptedException {
+        for (int i = 0; i < spins; i++) {
+            if (!robotTurn) {
+                return;
+            }
+            Thread.onSpinWait();
+        }
+
+        this.engineParked = true;
+        try {
+            while (robotTurn) {
+                LockSupport.park(this);
+                if (Thread.interrupted()) {
+                    throw new InterruptedException();
+                }
+            }
+        } finally {
+            this.engineParked = false;
+        }
+    }
+}
@@ -1,5 +1,7 @@
 package battlecode.instrumenter;
 
+import battlecode.server.Config;
+
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
@@ -30,7 +32,11 @@ public class Verifier {
 
     public static boolean verify(String teamPackageName, String teamURL) {
         try {
-            TeamClassLoaderFactory.Loader loader = new TeamClassLoaderFactory(teamURL).createLoader(false);
+            // There is no match to take the options from, so they come from the command line
+            Config config = Config.getGlobalConfig();
+            TeamClassLoaderFactory.Loader loader = new TeamClassLoaderFactory(teamURL,
+                    config.getBoolean("bc.engine.debug-methods"),
+                    config.getBoolean("bc.engine.share-library-classes")).createLoader(false);
 
             // Has teamPackageName/RobotPlayer.java
             loader.loadClass(teamPackageName + ".RobotPlayer");
@@ -2,11 +2,16 @@ package battlecode.instrumenter.bytecode;
 
 import battlecode.instrumenter.InstrumentationException;
 import battlecode.instrumenter.TeamClassLoaderFactory;
+import battlecode.instrumenter.inject.IdentityHashed;
 import org.objectweb.asm.ClassVisitor;
 import org.objectweb.asm.FieldVisitor;
 import org.objectweb.asm.MethodVisitor;
 import org.objectweb.asm.Opcodes;
 
+import java.util.Arrays;
+
+import static battlecode.instrumenter.InstrumentationException.Type.ILLEGAL;
+
 /**
  * Instruments a class. Overrides class references and runs an
  * InstrumentingMethodVisitor on every method.
@@ -28,6 +33,10 @@ public class InstrumentingClassVisitor extends ClassVisitor implements Opcodes {
     // don't check those.
     private final boolean checkDisallowed;
 
+    // Player classes that don't extend another player class get a field
+    // to keep their identity hash code in; see IdentityHashed.
+    private boolean identityHashed;
+
     /**
      * Creates a InstrumentingClassVisitor to instrument a given class.
      *  @param cv                  the ClassVisitor that should be used to read the class
@@ -65,7 +74,17 @@ public class InstrumentingClassVisitor extends ClassVisitor implements Opcodes {
         }
         String newSuperName;
         newSuperName = loader.getRefUtil().classReference(superName, checkDisallowed);
-        super.visit(version, access, className, loader.getRefUtil().methodSignatureReference(signature, checkDisallowed), newSuperName, interfaces);
+
+        identityHashed = checkDisallowed
+                && (access & Opcodes.ACC_INTERFACE) == 0
+                && (superName == null || !loader.getFactory().hasTeamClass(superName));
+        String[] newInterfaces = interfaces;
+        if (identityHashed) {
+            newInterfaces = Arrays.copyOf(interfaces, interfaces.length + 1);
+            newInterfaces[interfaces.length] = IdentityHashed.NAME;
+        }
+
+        super.visit(version, access, className, loader.getRefUtil().methodSignatureReference(signature, checkDisallowed), newSuperName, newInterfaces);
     }
 
     /**
@@ -77,6 +96,7 @@ public class InstrumentingClassVisitor extends ClassVisitor implements Opcodes {
             final String desc,
             final String signature,
             final String[] exceptions) {
+        checkReservedName(name);
 
         // Nothing bad should happen if a function is synchronized, because
         // there isn't any way for two robots to get the same instance of
@@ -115,6 +135,7 @@ public class InstrumentingClassVisitor extends ClassVisitor implements Opcodes {
      * @inheritDoc
      */
     public FieldVisitor visitField(int access, String name, String desc, String signature, Object value) {
+        checkReservedName(name);
         // Strip the volatile keyword for performance reasons.  It's
         // safe to do so since an instance of an instrumented class
         // should never be accessed by more than one thread.
@@ -158,4 +179,41 @@ public class InstrumentingClassVisitor extends ClassVisitor implements Opcodes {
         super.visitNestMember(loader.getRefUtil().classReference(nestMember, checkDisallowed));
     }
 
+    /**
+     * Adds the identity hash code field, and the IdentityHashed methods
+     * that get and set it. They aren't instrumented, so they don't cost
+     * the player anything.
+     */
+    @Override
+    public void visitEnd() {
+        if (identityHashed) {
+            cv.visitField(ACC_PRIVATE | ACC_SYNTHETIC, IdentityHashed.FIELD, "I", null, null).visitEnd();
+
+            MethodVisitor mv = cv.visitMethod(ACC_PUBLIC | ACC_SYNTHETIC, IdentityHashed.GET_METHOD, "()I", null, null);
+            mv.visitCode();
+            mv.visitVarInsn(ALOAD, 0);
+            mv.visitFieldInsn(GETFIELD, className, IdentityHashed.FIELD, "I");
+            mv.visitInsn(IRETURN);
+            mv.visitMaxs(0, 0);
+            mv.visitEnd();
+
+            mv = cv.visitMethod(ACC_PUBLIC | ACC_SYNTHETIC, IdentityHashed.SET_METHOD, "(I)V", null, null);
+            mv.visitCode();
+            mv.visitVarInsn(ALOAD, 0);
+            mv.visitVarInsn(ILOAD, 1);
+            mv.visitFieldInsn(PUTFIELD, className, IdentityHashed.FIELD, "I");
+            mv.visitInsn(RETURN);
+            mv.visitMaxs(0, 0);
+            mv.visitEnd();
+        }
+        super.visitEnd();
+    }
+
+    private void checkReservedName(String name) {
+        if (checkDisallowed && name.startsWith("$battlecode$")) {
+            throw new InstrumentationException(ILLEGAL, "Illegal member: " + className + "." + name
+                    + "\n    names starting with $battlecode$ are reserved.");
+        }
+    }
+
 }
@@ -39,6 +39,12 @@ public class InstrumentingMethodVisitor extends MethodNode implements Opcodes {
     private final Set<LabelNode> exceptionHandlers = new HashSet<>();
     private final Set<LabelNode> tryCatchStarts = new HashSet<>();
 
+    // labels anything jumps to, or that bound a try / catch block
+    private final Set<LabelNode> branchTargets = new HashSet<>();
+
+    // whether the method ever stores to local 0, which is otherwise "this"
+    private boolean thisReassigned;
+
     private static final Set<String> instrumentedStringFuncs = new HashSet<>();
 
     static {
@@ -100,6 +106,19 @@ public class InstrumentingMethodVisitor extends MethodNode implements Opcodes {
         for (Object o : tryCatchBlocks) {
             visitTryCatchBlockNode((TryCatchBlockNode) o);
         }
+        for (AbstractInsnNode node : instructions) {
+            if (node instanceof VarInsnNode store && store.getOpcode() == ASTORE && store.var == 0) {
+                thisReassigned = true;
+            } else if (node instanceof JumpInsnNode jump) {
+                branchTargets.add(jump.label);
+            } else if (node instanceof LookupSwitchInsnNode lookup) {
+                branchTargets.add(lookup.dflt);
+                branchTargets.addAll(lookup.labels);
+            } else if (node instanceof TableSwitchInsnNode table) {
+                branchTargets.add(table.dflt);
+                branchTargets.addAll(table.labels);
+            }
+        }
         for (AbstractInsnNode node : instructions.toArray()) {
             // node could be taken out of the list
             // or have stuff inserted after it,
@@ -163,6 +182,15 @@ public class InstrumentingMethodVisitor extends MethodNode implements Opcodes {
         if (debugMethodsEnabled && name.startsWith(DEBUG_PREFIX) && desc.endsWith("V")) {
             addDebugHandler();
         }
+        if (name.equals("<clinit>")) {
+            // a robot paused in here may hold up the engine, or in a shared
+            // library its teammates
+            if (checkDisallowed) {
+                addBracketHandler("enterClassInitializer", "exitClassInitializer");
+            } else {
+                addBracketHandler("enterLibraryClassInitializer", "exitLibraryClassInitializer");
+            }
+        }
         if (anyTryCatch) {
             addRobotDeathHandler();
         }
@@ -179,6 +207,9 @@ public class InstrumentingMethodVisitor extends MethodNode implements Opcodes {
     private void visitTryCatchBlockNode(TryCatchBlockNode n) {
         exceptionHandlers.add(n.handler);
         tryCatchStarts.add(n.start);
+        branchTargets.add(n.start);
+        branchTargets.add(n.end);
+        branchTargets.add(n.handler);
         if (n.type != null) {
             n.type = classReference(n.type);
         }
@@ -231,10 +262,21 @@ public class InstrumentingMethodVisitor extends MethodNode implements Opcodes {
     }
 
     private void addDebugHandler() {
+        addBracketHandler("incrementDebugLevel", "decrementDebugLevel");
+    }
+
+    /**
+     * Calls a RobotMonitor method on entering the method, and another on
+     * leaving it by throwing. Returns call the second method themselves.
+     *
+     * @param enterMethod the RobotMonitor method to call at the start
+     * @param exitMethod  the RobotMonitor method to call on the way out
+     */
+    private void addBracketHandler(String enterMethod, String exitMethod) {
         // will be injected at the end of the method
         final LabelNode debugEndLabel = new LabelNode(new Label());
 
-        // we wrap the method in a try / catch to enable debug mode
+        // we wrap the method in a try / catch
         tryCatchBlocks.add(new TryCatchBlockNode(
                 startLabel,    // start our "try" at the beginning of the method
                 debugEndLabel, // end at the end of the method
@@ -242,17 +284,17 @@ public class InstrumentingMethodVisitor extends MethodNode implements Opcodes {
                 null           // catch any exception for finally
         ));
 
-        // at the beginning of the method, call "incrementDebugLevel"
+        // at the beginning of the method, call enterMethod
         instructions.insertBefore(nextInstruction(instructions.getFirst()),
                 new MethodInsnNode(
                         INVOKESTATIC, // static method
                         "battlecode/instrumenter/inject/RobotMonitor", // class
-                        "incrementDebugLevel", "()V", // method / desc
+                        enterMethod, "()V", // method / desc
                         false // not an interface method
                 )
         );
 
-        // add debug label to the end
+        // add the end label
         instructions.add(debugEndLabel);
 
         // create a new stack frame
@@ -262,11 +304,11 @@ public class InstrumentingMethodVisitor extends MethodNode implements Opcodes {
                 1, new Object[]{"java/lang/Throwable"} // but an exception on the stack
         ));
 
-        // call decrementDebugLevel
+        // call exitMethod
         instructions.add(new MethodInsnNode(
                 INVOKESTATIC,
                 "battlecode/instrumenter/inject/RobotMonitor",
-                "decrementDebugLevel", "()V",
+                exitMethod, "()V",
                 false
         ));
 
@@ -315,6 +357,14 @@ public class InstrumentingMethodVisitor extends MethodNode implements Opcodes {
                             false
                     ));
                 }
+                if (name.equals("<clinit>")) {
+                    instructions.insertBefore(n, new MethodInsnNode(
+                            INVOKESTATIC,
+                            "battlecode/instrumenter/inject/RobotMonitor",
+                            checkDisallowed ? "exitClassInitializer" : "exitLibraryClassInitializer", "()V",
+                            false
+                    ));
+                }
                 break;
             case ATHROW:
                 endOfBasicBlock(n);
@@ -637,11 +687,97 @@ public class InstrumentingMethodVisitor extends MethodNode implements Opcodes {
     }
 
     private void visitLabelNode(LabelNode n) {
-        endOfBasicBlock(n);
+        // Labels nothing jumps to just mark lines and variable scopes, so the
+        // code after one can be charged along with the code before it, unless
+        // it could throw and skip a charge the robot would have paid here.
+        if (branchTargets.contains(n) || mayThrowBeforeBlockEnd(n))
+            endOfBasicBlock(n);
         if (exceptionHandlers.contains(n))
             bytecodeCtr += GameConstants.EXCEPTION_BYTECODE_PENALTY;
     }
 
+    /**
+     * Tests whether any instruction between a label and the end of the
+     * basic block it starts could throw. Errs on the side of yes; anything
+     * that isn't plainly arithmetic or moving values around might.
+     *
+     * @param n the label
+     */
+    private boolean mayThrowBeforeBlockEnd(LabelNode n) {
+        for (AbstractInsnNode i = n.getNext(); i != null; i = i.getNext()) {
+            switch (i.getType()) {
+                case LABEL:
+                case JUMP_INSN:
+                case LOOKUPSWITCH_INSN:
+                case TABLESWITCH_INSN:
+                    // the block ends, and is charged, before any of these
+                    return false;
+                case LINE:
+                case FRAME:
+                case IINC_INSN:
+                    break;
+                case VAR_INSN:
+                    if (i.getOpcode() == RET)
+                        return false;
+                    break;
+                case INT_INSN:
+                    if (i.getOpcode() == NEWARRAY)
+                        return true;
+                    break;
+                case LDC_INSN:
+                    // class and method handle constants may fail to resolve
+                    Object cst = ((LdcInsnNode) i).cst;
+                    if (!(cst instanceof Number || cst instanceof String))
+                        return true;
+                    break;
+                case INSN:
+                    switch (i.getOpcode()) {
+                        case IRETURN:
+                        case LRETURN:
+                        case FRETURN:
+                        case DRETURN:
+                        case ARETURN:
+                        case RETURN:
+                        case ATHROW:
+                            return false;
+                        case IALOAD: case LALOAD: case FALOAD: case DALOAD:
+                        case AALOAD: case BALOAD: case CALOAD: case SALOAD:
+                        case IASTORE: case LASTORE: case FASTORE: case DASTORE:
+                        case AASTORE: case BASTORE: case CASTORE: case SASTORE:
+                        case IDIV: case LDIV: case IREM: case LREM:
+                        case ARRAYLENGTH:
+                        case MONITORENTER: case MONITOREXIT:
+                            return true;
+                    }
+                    break;
+                case FIELD_INSN:
+                    if (!isOwnField((FieldInsnNode) i))
+                        return true;
+                    break;
+                default:
+                    // calls, allocation, casts...
+                    return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Tests whether a field instruction can't throw: static fields of this
+     * class (which is initialized, since it's running), and fields of this
+     * object loaded straight after "this" is.
+     */
+    private boolean isOwnField(FieldInsnNode n) {
+        // not yet rewritten, so the owner may lack the instrumented/ prefix
+        if (!n.owner.equals(className) && !("instrumented/" + n.owner).equals(className))
+            return false;
+        if (n.getOpcode() == GETSTATIC || n.getOpcode() == PUTSTATIC)
+            return true;
+        AbstractInsnNode previous = n.getPrevious();
+        return n.getOpcode() == GETFIELD && (access & ACC_STATIC) == 0 && !thisReassigned
+                && previous instanceof VarInsnNode load && load.getOpcode() == ALOAD && load.var == 0;
+    }
+
     private void visitTypeInsnNode(TypeInsnNode n) {
         n.desc = classReference(n.desc);
 	if (n.getOpcode() == ANEWARRAY) {
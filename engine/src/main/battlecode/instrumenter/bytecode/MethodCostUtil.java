@@ -1,5 +1,6 @@
 package battlecode.instrumenter.bytecode;
 
+import battlecode.instrumenter.InstrumentationException;
 import battlecode.instrumenter.TeamClassLoaderFactory;
 import org.objectweb.asm.ClassReader;
 
@@ -9,6 +10,7 @@ import java.io.InputStreamReader;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.StringTokenizer;
+import java.util.concurrent.ConcurrentHashMap;
 
 import static org.objectweb.asm.ClassReader.SKIP_DEBUG;
 
@@ -17,6 +19,15 @@ import static org.objectweb.asm.ClassReader.SKIP_DEBUG;
  *
  * It is never used to load player classes.
  *
+ * Costs are indexed by class, then by method name. A class's index holds
+ * the costs of its own methods and of every method it inherits from the
+ * classes and interfaces listed in MethodCosts.txt, so a lookup is two map
+ * probes and never builds a string. The indexes of the classes in the file
+ * are built when this class is loaded; those of other classes (the JDK
+ * classes players call, mostly) the first time they're looked up. Indexes
+ * are immutable once built, and it's safe to look them up from several
+ * threads.
+ *
  * @author adamd
  */
 public class MethodCostUtil {
@@ -30,14 +41,17 @@ public class MethodCostUtil {
     private final static String RESOURCE_FILE = "resources/MethodCosts.txt";
 
     /**
-     * This is a map from method names (in the format 'ClassName/methodName'), to the MethodData associated with each method.
+     * This is a map from binary class names to the MethodData of the methods
+     * each class declares in MethodCosts.txt.
      */
-    private final static Map<String, MethodData> methodCosts;
+    private final static Map<String, Map<String, MethodData>> declaredCosts;
 
     /**
-     * This is a map from binary class names, to all the classes/interfaces that the class transitively implements/extends.
+     * This is a map from binary class names to the MethodData of every method
+     * each class declares or inherits, as returned by getMethodData.
+     * It is filled lazily and shared by every match in the JVM, so it must be safe to fill from several threads.
      */
-    private final static Map<String, String[]> interfacesMap;
+    private final static Map<String, Map<String, MethodData>> classCosts;
 
     /**
      * A struct that stores data about a method -- what its lookup bytecode cost is, and whether it should end the basic block or not.
@@ -56,7 +70,7 @@ public class MethodCostUtil {
         BufferedReader reader;
         String line;
 
-        methodCosts = new HashMap<>();
+        Map<String, Map<String, MethodData>> declared = new HashMap<>();
         // load method costs
         try {
             reader = new BufferedReader(new InputStreamReader(
@@ -66,13 +80,30 @@ public class MethodCostUtil {
                 StringTokenizer st = new StringTokenizer(line);
                 if (st.countTokens() != 3)
                     ClassReferenceUtil.fileLoadError(RESOURCE_FILE);
-                methodCosts.put(st.nextToken(), new MethodData(Integer.parseInt(st.nextToken()), Boolean.parseBoolean(st.nextToken())));
+                String method = st.nextToken();
+                int split = method.lastIndexOf('/');
+                declared.computeIfAbsent(method.substring(0, split), k -> new HashMap<>())
+                        .put(method.substring(split + 1),
+                                new MethodData(Integer.parseInt(st.nextToken()), Boolean.parseBoolean(st.nextToken())));
             }
         } catch (IOException e) {
             ClassReferenceUtil.fileLoadError(RESOURCE_FILE);
         }
 
-        interfacesMap = new HashMap<>();
+        declaredCosts = new HashMap<>();
+        for (Map.Entry<String, Map<String, MethodData>> entry : declared.entrySet()) {
+            declaredCosts.put(entry.getKey(), Map.copyOf(entry.getValue()));
+        }
+
+        classCosts = new ConcurrentHashMap<>();
+        for (String className : declaredCosts.keySet()) {
+            try {
+                classCosts.put(className, indexClass(className));
+            } catch (InstrumentationException e) {
+                // Not on the classpath; its own methods still cost what they cost
+                classCosts.put(className, declaredCosts.get(className));
+            }
+        }
     }
 
     /**
@@ -84,30 +115,33 @@ public class MethodCostUtil {
     public static MethodData getMethodData(String className, String methodName) {
         if (className.charAt(0) == '[')
             return null;
-        String key = className + "/" + methodName;
-
-        if (methodCosts.containsKey(key))
-            return methodCosts.get(key);
-
-        String[] interfaces;
-        if (interfacesMap.containsKey(className))
-            interfaces = interfacesMap.get(className);
-        else {
-            ClassReader cr = TeamClassLoaderFactory.normalReader(className);
-            InterfaceReader ir = new InterfaceReader(null);
-            cr.accept(ir, SKIP_DEBUG);
-            interfaces = ir.getInterfaces();
-            interfacesMap.put(className, interfaces);
-        }
 
-        for (String anInterface : interfaces) {
-            key = anInterface + "/" + methodName;
-            if (methodCosts.containsKey(key))
-                return methodCosts.get(key);
+        Map<String, MethodData> costs = classCosts.get(className);
+        if (costs == null) {
+            // Two threads may both index the class; they compute the same answer.
+            costs = indexClass(className);
+            classCosts.putIfAbsent(className, costs);
         }
-
-        return null;
+        return costs.get(methodName);
     }
 
-
+    /**
+     * @param className the binary name of a class
+     * @return the costs of every method the class declares or inherits; a
+     *         class's own methods win, then those of the classes and
+     *         interfaces it extends, in the order InterfaceReader lists them
+     */
+    private static Map<String, MethodData> indexClass(String className) {
+        ClassReader cr = TeamClassLoaderFactory.normalReader(className);
+        InterfaceReader ir = new InterfaceReader(null);
+        cr.accept(ir, SKIP_DEBUG);
+
+        Map<String, MethodData> costs = new HashMap<>(declaredCosts.getOrDefault(className, Map.of()));
+        for (String anInterface : ir.getInterfaces()) {
+            for (Map.Entry<String, MethodData> entry : declaredCosts.getOrDefault(anInterface, Map.of()).entrySet()) {
+                costs.putIfAbsent(entry.getKey(), entry.getValue());
+            }
+        }
+        return Map.copyOf(costs);
+    }
 }
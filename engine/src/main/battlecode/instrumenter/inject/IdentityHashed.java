@@ -0,0 +1,30 @@
+package battlecode.instrumenter.inject;
+
+/**
+ * Implemented by every instrumented player class, which the instrumenter
+ * gives a field to keep the object's identity hash code in. That lets
+ * ObjectMethods.identityHashCode find the code of a player object without
+ * looking it up in the robot's PlayerContext.
+ *
+ * Player classes may not declare methods or fields with these names.
+ *
+ * @see battlecode.instrumenter.bytecode.InstrumentingClassVisitor
+ */
+public interface IdentityHashed {
+
+    String NAME = "battlecode/instrumenter/inject/IdentityHashed";
+    String GET_METHOD = "$battlecode$getIdentityHash";
+    String SET_METHOD = "$battlecode$setIdentityHash";
+    String FIELD = "$battlecode$identityHash";
+
+    /**
+     * @return one more than the object's identity hash code, or 0 if it
+     *         doesn't have one yet
+     */
+    int $battlecode$getIdentityHash();
+
+    /**
+     * @param code one more than the object's identity hash code
+     */
+    void $battlecode$setIdentityHash(int code);
+}
@@ -1,5 +1,7 @@
 package battlecode.instrumenter.inject;
 
+import battlecode.instrumenter.PlayerContext;
+
 import java.util.Random;
 import java.util.regex.Pattern;
 
@@ -12,16 +14,15 @@ public class InstrumentableFunctions {
     private InstrumentableFunctions() {
     }
 
-    static private Random rnd;
-
     static public double random() {
         return getRandom().nextDouble();
     }
 
     static private Random getRandom() {
-        if (rnd == null)
-            rnd = new Random(RobotMonitor.getRandomSeed());
-        return rnd;
+        final PlayerContext c = RobotMonitor.context();
+        if (c.random == null)
+            c.random = new Random(c.randomSeed);
+        return c.random;
     }
 
     static public boolean matches(String str, String regex) {
@@ -0,0 +1,82 @@
+package battlecode.instrumenter.inject;
+
+import java.lang.reflect.Method;
+
+/**
+ * Remembers which classes use Object's hashCode and toString, for
+ * ObjectMethods.
+ *
+ * Unlike ObjectMethods this class isn't redefined for every team, so every
+ * match in the JVM shares the answers; they only depend on the class.
+ * ClassValue keeps them with the class, so looking one up is about as fast
+ * as reading a field, and is safe from several threads.
+ */
+public final class ObjectMethodOverrides {
+
+    private static final Method objectHashCode;
+    private static final Method enumHashCode;
+    private static final Method characterHashCode;
+
+    private static final Method objectToString;
+
+    static {
+        Method tmpo = null, tmpe = null, tmpc = null, tmps = null;
+        try {
+            tmpo = Object.class.getMethod("hashCode");
+            tmpe = Enum.class.getMethod("hashCode");
+            tmpc = Character.class.getMethod("hashCode");
+            tmps = Object.class.getMethod("toString");
+        } catch (Exception e) {
+            throw new RuntimeException("Can't load needed functions", e);
+        }
+
+        objectHashCode = tmpo;
+        enumHashCode = tmpe;
+        characterHashCode = tmpc;
+        objectToString = tmps;
+    }
+
+    private static final ClassValue<Boolean> usesOHC = new ClassValue<Boolean>() {
+        @Override
+        protected Boolean computeValue(Class<?> cl) {
+            Method hashCodeMethod = publicMethod(cl, "hashCode");
+            return hashCodeMethod.equals(enumHashCode) ||
+                    hashCodeMethod.equals(objectHashCode) ||
+                    hashCodeMethod.equals(characterHashCode);
+        }
+    };
+
+    private static final ClassValue<Boolean> usesOTS = new ClassValue<Boolean>() {
+        @Override
+        protected Boolean computeValue(Class<?> cl) {
+            return publicMethod(cl, "toString").equals(objectToString);
+        }
+    };
+
+    /**
+     * @return whether instances of the class hash by identity (or by
+     *         Enum's or Character's hashCode, which do too)
+     */
+    public static boolean usesObjectHashCode(Class<?> cl) {
+        return usesOHC.get(cl);
+    }
+
+    /**
+     * @return whether instances of the class use Object's toString
+     */
+    public static boolean usesObjectToString(Class<?> cl) {
+        return usesOTS.get(cl);
+    }
+
+    private static Method publicMethod(Class<?> cl, String name) {
+        try {
+            return cl.getMethod(name);
+        } catch (NoSuchMethodException e) {
+            // Every class has one, inherited from Object if nothing else
+            throw new RuntimeException("Can't find " + cl.getName() + "." + name, e);
+        }
+    }
+
+    private ObjectMethodOverrides() {
+    }
+}
@@ -1,84 +1,48 @@
 package battlecode.instrumenter.inject;
 
-import org.hibernate.search.util.WeakIdentityHashMap;
+import battlecode.instrumenter.PlayerContext;
 
-import java.lang.reflect.Method;
-import java.util.HashMap;
 
 public class ObjectMethods {
 
-    static final Method objectHashCode;
-    static final Method enumHashCode;
-    static final Method characterHashCode;
-
-    static final Method objectToString;
-
-    static {
-        Method tmpo = null, tmpe = null, tmpc = null, tmps = null;
-        try {
-            tmpo = Object.class.getMethod("hashCode");
-            tmpe = Enum.class.getMethod("hashCode");
-            tmpc = Character.class.getMethod("hashCode");
-            tmps = Object.class.getMethod("toString");
-        } catch (Exception e) {
-            throw new RuntimeException("Can't load needed functions", e);
-        }
-
-        objectHashCode = tmpo;
-        enumHashCode = tmpe;
-        characterHashCode = tmpc;
-        objectToString = tmps;
-    }
-
-    static int lastHashCode = -1;
-
-    static WeakIdentityHashMap<Object, Integer> codes = new WeakIdentityHashMap<>();
-
-    // reflection is slow so cache the results
-    static HashMap<Class<?>, Boolean> usesOHC = new HashMap<>();
-    static HashMap<Class<?>, Boolean> usesOTS = new HashMap<>();
+    // Identity hash codes are handed out per robot, from the robot's
+    // PlayerContext, so a robot can't learn anything about its teammates
+    // by calling hashCode even when they share this class.
 
     static public int hashCode(Object o) throws NoSuchMethodException {
-        if (usesObjectHashCode(o.getClass()))
+        if (ObjectMethodOverrides.usesObjectHashCode(o.getClass()))
             return identityHashCode(o);
         else
             return o.hashCode();
     }
 
     static public String toString(Object o) throws NoSuchMethodException {
-        if (usesObjectToString(o.getClass()))
+        if (ObjectMethodOverrides.usesObjectToString(o.getClass()))
             return identityToString(o);
         else
             return o.toString();
     }
 
-    static private boolean usesObjectHashCode(Class<?> cl) throws NoSuchMethodException {
-        Boolean b = usesOHC.get(cl);
-        if (b == null) {
-            Method hashCodeMethod = cl.getMethod("hashCode");
-            b = hashCodeMethod.equals(enumHashCode) ||
-                    hashCodeMethod.equals(objectHashCode) ||
-                    hashCodeMethod.equals(characterHashCode);
-            usesOHC.put(cl, b);
-        }
-        return b;
-    }
-
-    static private boolean usesObjectToString(Class<?> cl) throws NoSuchMethodException {
-        Boolean b = usesOTS.get(cl);
-        if (b == null) {
-            Method toStringMethod = cl.getMethod("toString");
-            b = toStringMethod.equals(objectToString);
-            usesOTS.put(cl, b);
+    static public int identityHashCode(Object o) {
+        final PlayerContext c = RobotMonitor.context();
+
+        // Player objects keep their code themselves, offset by one so that
+        // 0 means they don't have one yet. Either way codes come from the
+        // same sequence, in the order objects are first hashed.
+        if (o instanceof IdentityHashed) {
+            IdentityHashed h = (IdentityHashed) o;
+            int code = h.$battlecode$getIdentityHash() - 1;
+            if (code < 0) {
+                code = ++c.lastHashCode;
+                h.$battlecode$setIdentityHash(code + 1);
+            }
+            return code;
         }
-        return b;
-    }
 
-    static public int identityHashCode(Object o) {
-        Integer code = codes.get(o);
+        Integer code = c.hashCodes.get(o);
         if (code == null) {
-            codes.put(o, ++lastHashCode);
-            return lastHashCode;
+            c.hashCodes.put(o, ++c.lastHashCode);
+            return c.lastHashCode;
         } else
             return code;
     }
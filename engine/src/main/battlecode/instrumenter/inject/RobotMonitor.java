@@ -1,11 +1,9 @@
 package battlecode.instrumenter.inject;
 
-import battlecode.instrumenter.SandboxedRobotPlayer;
-import battlecode.instrumenter.profiler.Profiler;
+import battlecode.instrumenter.PlayerContext;
+import battlecode.instrumenter.TeamClassLoaderFactory;
 import battlecode.server.ErrorReporter;
-import battlecode.world.control.PlayerControlProvider;
 
-import java.io.PrintStream;
 import java.lang.Math;
 import java.lang.Integer;
 
@@ -14,80 +12,30 @@ import java.lang.Integer;
  * by the instrumenter.
  *
  * Don't let the fact that this class is "static" fool you. It's static for instrumentation convenience;
- * a new version is loaded every time a new robot player is loaded, and is specific to that robot.
+ * a new version is loaded for every library of classes robot players run with (one per robot, or one per
+ * team when library classes are shared), and all of its state lives in the PlayerContext of whichever
+ * robot its library is currently running.
  *
  * The specific call the instrumentation uses is "incrementBytecodes".
  *
  * @author adamd
  */
 public final class RobotMonitor {
-    private static int bytecodeLimit;
-
-    private static int randomSeed;
-
-    private static int bytecodesLeft;
-    private static int bytecodesToRemove;
-    private static boolean shouldDie;
-    private static int debugLevel;
-
-    private static SandboxedRobotPlayer.Pauser pauser;
-    private static SandboxedRobotPlayer.Killer killer;
-
-    private static Profiler profiler;
-    private static PlayerControlProvider provider;
-
-    // Methods called from SandboxedRobotPlayer
-
     /**
-     * A "constructor".
-     * Initializes the monitor.
-     *
-     * Called in the robot thread from SandboxedRobotPlayer.
-     *
-     * @param thePauser   pauser to use to pause the thread
-     * @param theKiller   killer to use to kill the thread
-     * @param seed        seed to use for new Random instances
-     * @param theProfiler profiler to log bytecode usage per method to (profiling is disabled if null)
-     * @param theProvider player control provider to query computation time remaining
+     * The library this copy of the monitor was loaded into, which knows the
+     * active player.
      */
-    @SuppressWarnings("unused")
-    public static void init(SandboxedRobotPlayer.Pauser thePauser,
-                            SandboxedRobotPlayer.Killer theKiller,
-                            int seed,
-                            Profiler theProfiler,
-                            PlayerControlProvider theProvider) {
-        shouldDie = false;
-        bytecodesLeft = 0;
-        debugLevel = 0;
-
-        randomSeed = seed;
-        pauser = thePauser;
-        killer = theKiller;
-
-        profiler = theProfiler;
-        provider = theProvider;
-    }
+    private static final TeamClassLoaderFactory.Loader library =
+            (TeamClassLoaderFactory.Loader) RobotMonitor.class.getClassLoader();
 
     /**
-     * Set the bytecode limit of this robot.
-     *
-     * @param limit the new limit
+     * @return the state of the robot currently running
      */
-    @SuppressWarnings("unused")
-    public static void setBytecodeLimit(int limit) {
-        bytecodeLimit = limit;
+    static PlayerContext context() {
+        return library.getActive();
     }
 
-    /**
-     * Set System.out for this robot.
-     *
-     * @param out the printstream to replace System.out with
-     */
-    @SuppressWarnings("unused")
-    public static void setSystemOut(PrintStream out) {
-        System.out = out;
-        System.err = out;
-    }
+    // Methods called from SandboxedRobotPlayer
 
     /**
      * Kills the robot associated with this monitor.
@@ -96,7 +44,9 @@ public final class RobotMonitor {
      */
     @SuppressWarnings("unused")
     public static void killRobot() {
-        shouldDie = true;
+        final PlayerContext c = context();
+        c.shouldDie = true;
+        c.updateFastPath();
     }
 
     /**
@@ -105,7 +55,7 @@ public final class RobotMonitor {
      */
     @SuppressWarnings("unused")
     public static int getBytecodeNum() {
-        return bytecodeLimit - getBytecodesLeft();
+        return context().getBytecodeNum();
     }
 
     /**
@@ -113,7 +63,7 @@ public final class RobotMonitor {
      */
     @SuppressWarnings("unused")
     public static int getBytecodesLeft() {
-        return bytecodesLeft;
+        return context().bytecodesLeft;
     }
 
     /**
@@ -122,7 +72,7 @@ public final class RobotMonitor {
      */
     @SuppressWarnings("unused")
     public static long getTimeElapsed() {
-        return provider.getTimeElapsed();
+        return context().provider.getTimeElapsed();
     }
 
     /**
@@ -130,7 +80,7 @@ public final class RobotMonitor {
      */
     @SuppressWarnings("unused")
     public static long getTimeLeft() {
-        return provider.getTimeLeft();
+        return context().provider.getTimeLeft();
     }
 
     // Methods called from RobotPlayer
@@ -146,32 +96,53 @@ public final class RobotMonitor {
      */
     @SuppressWarnings("unused")
     public static void incrementBytecodes(int numBytecodes) {
+        final PlayerContext c = context();
+
+        // Usually there's nothing to do but count, and the turn isn't over.
+        // This is kept small enough for the JIT to inline into every basic
+        // block; anything else goes through the slow path, which charges the
+        // same.
+        if (c.fastPath && c.bytecodesLeft > numBytecodes) {
+            c.bytecodesLeft -= numBytecodes;
+            return;
+        }
+        incrementBytecodesSlowly(c, numBytecodes);
+    }
+
+    /**
+     * The general case of incrementBytecodes.
+     *
+     * @param c            the state of the robot currently running
+     * @param numBytecodes the number of bytecodes the robot just executed
+     */
+    private static void incrementBytecodesSlowly(PlayerContext c, int numBytecodes) {
         // If we should die, then... do that.
-        if (shouldDie) {
-            killer.kill();
+        if (c.shouldDie) {
+            c.killer.kill();
         }
 
-        if (debugLevel == 0) {
+        if (c.debugLevel == 0) {
             try {
                 // check for integer overflow exploits
-                bytecodesLeft = Math.subtractExact(bytecodesLeft, numBytecodes);
-                bytecodesLeft = Math.subtractExact(bytecodesLeft, bytecodesToRemove);
+                c.bytecodesLeft = Math.subtractExact(c.bytecodesLeft, numBytecodes);
+                c.bytecodesLeft = Math.subtractExact(c.bytecodesLeft, c.bytecodesToRemove);
             } catch (ArithmeticException e) {
-                bytecodesLeft = Integer.MIN_VALUE;
+                c.bytecodesLeft = Integer.MIN_VALUE;
             }
 
-            if (profiler != null) {
+            if (c.profiler != null) {
                 // profiler.incrementBytecodes uses Math.addExact to prevent against integer overflow
-                profiler.incrementBytecodes(numBytecodes);
-                profiler.incrementBytecodes(bytecodesToRemove);
+                c.profiler.incrementBytecodes(numBytecodes);
+                c.profiler.incrementBytecodes(c.bytecodesToRemove);
             }
 
-            while (bytecodesLeft <= 0) {
+            while (c.bytecodesLeft <= 0) {
                 pause();
             }
         }
-	
-	    bytecodesToRemove = 0;
+
+        c.bytecodesToRemove = 0;
+        c.updateFastPath();
     }
 
     /**
@@ -189,11 +160,13 @@ public final class RobotMonitor {
         // Several potential exploits mean this argument may be passed a negative value.
         // It's easier to deal with this here than in the instrumenter.
         if (numBytecodes > 0) {
+            final PlayerContext c = context();
             try {
-                bytecodesToRemove = Math.addExact(bytecodesToRemove, numBytecodes);  // to prevent integer overflow
+                c.bytecodesToRemove = Math.addExact(c.bytecodesToRemove, numBytecodes);  // to prevent integer overflow
             } catch (ArithmeticException e) {
-                bytecodesToRemove = Integer.MAX_VALUE;
+                c.bytecodesToRemove = Integer.MAX_VALUE;
             }
+            c.updateFastPath();
         }
     }
 
@@ -243,7 +216,9 @@ public final class RobotMonitor {
      */
     @SuppressWarnings("unused")
     public static void incrementDebugLevel() {
-        debugLevel++;
+        final PlayerContext c = context();
+        c.debugLevel++;
+        c.updateFastPath();
     }
 
     /**
@@ -253,13 +228,58 @@ public final class RobotMonitor {
      */
     @SuppressWarnings("unused")
     public static void decrementDebugLevel() {
-        debugLevel--;
-        if (debugLevel < 0) {
+        final PlayerContext c = context();
+        if (--c.debugLevel < 0) {
             ErrorReporter.report("Debug level below zero, this should be impossible!", true);
             killRobot();
         }
+        c.updateFastPath();
+    }
+
+
+    /**
+     * Called when entering a static initializer.
+     *
+     * THIS METHOD IS CALLED BY THE INSTRUMENTER.
+     */
+    @SuppressWarnings("unused")
+    public static void enterClassInitializer() {
+        context().classInitializers++;
+    }
+
+    /**
+     * Called when exiting a static initializer.
+     *
+     * THIS METHOD IS CALLED BY THE INSTRUMENTER.
+     */
+    @SuppressWarnings("unused")
+    public static void exitClassInitializer() {
+        context().classInitializers--;
     }
 
+    /**
+     * Called when entering a library class's static initializer.
+     *
+     * THIS METHOD IS CALLED BY THE INSTRUMENTER.
+     */
+    @SuppressWarnings("unused")
+    public static void enterLibraryClassInitializer() {
+        final PlayerContext c = context();
+        c.classInitializers++;
+        c.libraryClassInitializers++;
+    }
+
+    /**
+     * Called when exiting a library class's static initializer.
+     *
+     * THIS METHOD IS CALLED BY THE INSTRUMENTER.
+     */
+    @SuppressWarnings("unused")
+    public static void exitLibraryClassInitializer() {
+        final PlayerContext c = context();
+        c.classInitializers--;
+        c.libraryClassInitializers--;
+    }
 
     /**
      * Used to construct new Random instances.
@@ -269,7 +289,7 @@ public final class RobotMonitor {
      * @return the random seed for this robot
      */
     public static long getRandomSeed() {
-        return randomSeed;
+        return context().randomSeed;
     }
 
     /**
@@ -281,8 +301,9 @@ public final class RobotMonitor {
      */
     @SuppressWarnings("unused")
     public static void enterMethod(String methodName) {
-        if (debugLevel == 0 && profiler != null) {
-            profiler.enterMethod(methodName);
+        final PlayerContext c = context();
+        if (c.debugLevel == 0 && c.profiler != null) {
+            c.profiler.enterMethod(methodName);
         }
     }
 
@@ -295,8 +316,9 @@ public final class RobotMonitor {
      */
     @SuppressWarnings("unused")
     public static void exitMethod(String methodName) {
-        if (debugLevel == 0 && profiler != null) {
-            profiler.exitMethod(methodName);
+        final PlayerContext c = context();
+        if (c.debugLevel == 0 && c.profiler != null) {
+            c.profiler.exitMethod(methodName);
         }
     }
 
@@ -306,7 +328,9 @@ public final class RobotMonitor {
      * Must be called from the robot's main thread.
      */
     public static void pause() {
-        pauser.pause();
+        final PlayerContext c = context();
+        c.budget.left = c.bytecodesLeft;
+        c.pauser.pause();
 
         reactivate();
     }
@@ -317,15 +341,17 @@ public final class RobotMonitor {
      * Must be called from the robot's main thread.
      */
     public static void reactivate() {
+        final PlayerContext c = context();
+
         // If we should die, then... do that.
-        if (shouldDie) {
-            killer.kill();
+        if (c.shouldDie) {
+            c.killer.kill();
         }
 
-        if (bytecodesLeft < 0) {
-            bytecodesLeft += bytecodeLimit;
+        if (c.bytecodesLeft < 0) {
+            c.bytecodesLeft += c.budget.limit;
         } else {
-            bytecodesLeft = bytecodeLimit;
+            c.bytecodesLeft = c.budget.limit;
         }
     }
 }
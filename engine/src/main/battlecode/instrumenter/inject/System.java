@@ -2,9 +2,9 @@ package battlecode.instrumenter.inject;
 
 import battlecode.instrumenter.InstrumentationException;
 import battlecode.instrumenter.RobotDeathException;
+import battlecode.instrumenter.TeamClassLoaderFactory;
 import battlecode.instrumenter.stream.EOFInputStream;
 import battlecode.instrumenter.stream.PrintStreamWrapper;
-import battlecode.server.Config;
 
 import java.io.*;
 import java.nio.channels.Channel;
@@ -20,16 +20,19 @@ import static battlecode.instrumenter.InstrumentationException.Type.ILLEGAL;
  * The battlecode instrumenter sneakily replaces any references to java.lang.System with references to
  * battlecode.lang.System.
  *
- * Reloaded individually for every robot.
+ * Like RobotMonitor, a copy is loaded for every library of classes robot players run with, and the
+ * streams and properties it hands out are those of whichever robot its library is currently running
+ * (see PlayerContext). Library classes shared by a team thus print to the robot that called them.
  *
  * @author adamd
  */
 @SuppressWarnings("unused")
 public final class System {
     /**
-     * The actual output stream.
+     * The actual output stream, which writes to the active robot's.
      */
-    private static PrintStreamWrapper realOut = new PrintStreamWrapper();
+    private static PrintStreamWrapper realOut =
+            new PrintStreamWrapper((TeamClassLoaderFactory.Loader) System.class.getClassLoader());
 
     /**
      * A fake System.out.
@@ -46,38 +49,6 @@ public final class System {
      */
     public static InputStream in = new EOFInputStream();
 
-    /**
-     * Some system properties.
-     */
-    private static Properties props = new Properties();
-
-    static {
-        props.setProperty("java.version", "who knows?");
-        props.setProperty("java.vendor", "who knows?");
-        props.setProperty("java.vendor.url", "who knows?");
-        props.setProperty("java.home", "who knows?");
-        props.setProperty("java.class.version", "who knows?");
-        props.setProperty("java.class.path", "who knows?");
-        props.setProperty("os.name", "who knows?");
-        props.setProperty("os.arch", "who knows?");
-        props.setProperty("os.version", "who knows?");
-        props.setProperty("file.separator", "who knows?");
-        props.setProperty("path.separator", "who knows?");
-        props.setProperty("line.separator", "who knows?");
-        props.setProperty("user.name", "who knows?");
-        props.setProperty("user.home", "who knows?");
-        props.setProperty("user.dir", "who knows?");
-
-        Config global = Config.getGlobalConfig();
-
-        // Copy bc.testing stuff
-        for (String key : global.getKeys()) {
-            if (key.startsWith("bc.testing")) {
-                props.put(key, global.get(key));
-            }
-        }
-    }
-
     /**
      * Prevent construction.
      */
@@ -85,14 +56,10 @@ public final class System {
     }
 
     /**
-     * Set System.out for this robot.
-     * Used by SandboxedRobotPlayer.
-     *
-     * @param newOut the printstream to replace System.out with
+     * @return the system properties of the active robot
      */
-    @SuppressWarnings("unused")
-    public static void setSystemOut(PrintStream newOut) {
-        realOut.wrapped = newOut;
+    private static Properties props() {
+        return RobotMonitor.context().properties;
     }
 
     // Working System methods.
@@ -134,19 +101,19 @@ public final class System {
     }
 
     public static String getProperty(String key) {
-        return props.getProperty(key);
+        return props().getProperty(key);
     }
 
     public static String getProperty(String key, String def) {
-        return props.getProperty(key, def);
+        return props().getProperty(key, def);
     }
 
     public static String setProperty(String key, String value) {
-        return (String) props.setProperty(key, value);
+        return (String) props().setProperty(key, value);
     }
 
     public static String clearProperty(String key) {
-        return (String) props.remove(key);
+        return (String) props().remove(key);
     }
 
     public static void exit(int status) {
@@ -24,12 +24,20 @@ public class RoboPrintStream extends PrintStream {
 
     private boolean writeToSystemOut;
 
+    // prepended to what is copied to System.out, to tell apart matches that run at once
+    private final String label;
+
     // if maxOutputBytes is -1, then it is treated as no limit
     public RoboPrintStream(OutputStream robotOut, boolean writeToSystemOut, int maxOutputBytes) throws UnsupportedEncodingException {
+        this(robotOut, writeToSystemOut, maxOutputBytes, "");
+    }
+
+    public RoboPrintStream(OutputStream robotOut, boolean writeToSystemOut, int maxOutputBytes, String label) throws UnsupportedEncodingException {
         super(SilencedPrintStream.theInstance());
         this.real = new LimitedPrintStream(robotOut, true, "UTF-8", maxOutputBytes);
         this.headerThisRound = false;
         this.writeToSystemOut = writeToSystemOut;
+        this.label = label;
     }
 
     //************************
@@ -39,55 +47,55 @@ public class RoboPrintStream extends PrintStream {
     public void print(boolean b) {
         String header = getHeader();
         real.print(header + b);
-        if (this.writeToSystemOut) java.lang.System.out.print(header + b);
+        if (this.writeToSystemOut) java.lang.System.out.print(label + header + b);
     }
 
     public void print(char c) {
         String header = getHeader();
         real.print(header + c);
-        if (this.writeToSystemOut) java.lang.System.out.print(header + c);
+        if (this.writeToSystemOut) java.lang.System.out.print(label + header + c);
     }
 
     public void print(char[] s) {
         String header = getHeader();
         real.print(header + new String(s));
-        if (this.writeToSystemOut) java.lang.System.out.print(header + new String(s));
+        if (this.writeToSystemOut) java.lang.System.out.print(label + header + new String(s));
     }
 
     public void print(double d) {
         String header = getHeader();
         real.print(header + d);
-        if (this.writeToSystemOut) java.lang.System.out.print(header + d);
+        if (this.writeToSystemOut) java.lang.System.out.print(label + header + d);
     }
 
     public void print(float f) {
         String header = getHeader();
         real.print(header + f);
-        if (this.writeToSystemOut) java.lang.System.out.print(header + f);
+        if (this.writeToSystemOut) java.lang.System.out.print(label + header + f);
     }
 
     public void print(int i) {
         String header = getHeader();
         real.print(header + i);
-        if (this.writeToSystemOut) java.lang.System.out.print(header + i);
+        if (this.writeToSystemOut) java.lang.System.out.print(label + header + i);
     }
 
     public void print(long l) {
         String header = getHeader();
         real.print(header + l);
-        if (this.writeToSystemOut) java.lang.System.out.print(header + l);
+        if (this.writeToSystemOut) java.lang.System.out.print(label + header + l);
     }
 
     public void print(Object obj) {
         String header = getHeader();
         real.print(header + obj);
-        if (this.writeToSystemOut) java.lang.System.out.print(header + obj);
+        if (this.writeToSystemOut) java.lang.System.out.print(label + header + obj);
     }
 
     public void print(String s) {
         String header = getHeader();
         real.print(header + s);
-        if (this.writeToSystemOut) java.lang.System.out.print(header + s);
+        if (this.writeToSystemOut) java.lang.System.out.print(label + header + s);
     }
 
     //***************************
@@ -97,61 +105,61 @@ public class RoboPrintStream extends PrintStream {
     public void println(boolean b) {
         String header = getHeader();
         real.println(header + b);
-        if (this.writeToSystemOut) java.lang.System.out.println(header + b);
+        if (this.writeToSystemOut) java.lang.System.out.println(label + header + b);
     }
 
     public void println(char c) {
         String header = getHeader();
         real.println(header + c);
-        if (this.writeToSystemOut) java.lang.System.out.println(header + c);
+        if (this.writeToSystemOut) java.lang.System.out.println(label + header + c);
     }
 
     public void println(char[] s) {
         String header = getHeader();
         real.println(header + new String(s));
-        if (this.writeToSystemOut) java.lang.System.out.println(header + new String(s));
+        if (this.writeToSystemOut) java.lang.System.out.println(label + header + new String(s));
     }
 
     public void println(double d) {
         String header = getHeader();
         real.println(header + d);
-        if (this.writeToSystemOut) java.lang.System.out.println(header + d);
+        if (this.writeToSystemOut) java.lang.System.out.println(label + header + d);
     }
 
     public void println(float f) {
         String header = getHeader();
         real.println(header + f);
-        if (this.writeToSystemOut) java.lang.System.out.println(header + f);
+        if (this.writeToSystemOut) java.lang.System.out.println(label + header + f);
     }
 
     public void println(int i) {
         String header = getHeader();
         real.println(header + i);
-        if (this.writeToSystemOut) java.lang.System.out.println(header + i);
+        if (this.writeToSystemOut) java.lang.System.out.println(label + header + i);
     }
 
     public void println(long l) {
         String header = getHeader();
         real.println(header + l);
-        if (this.writeToSystemOut) java.lang.System.out.println(header + l);
+        if (this.writeToSystemOut) java.lang.System.out.println(label + header + l);
     }
 
     public void println(Object obj) {
         String header = getHeader();
         real.println(header + obj);
-        if (this.writeToSystemOut) java.lang.System.out.println(header + obj);
+        if (this.writeToSystemOut) java.lang.System.out.println(label + header + obj);
     }
 
     public void println(String s) {
         String header = getHeader();
         real.println(header + s);
-        if (this.writeToSystemOut) java.lang.System.out.println(header + s);
+        if (this.writeToSystemOut) java.lang.System.out.println(label + header + s);
     }
 
     public void println() {
         String header = getHeader();
         real.println(header);
-        if (this.writeToSystemOut) java.lang.System.out.println(header);
+        if (this.writeToSystemOut) java.lang.System.out.println(label + header);
     }
 
 
@@ -162,21 +170,21 @@ public class RoboPrintStream extends PrintStream {
     public PrintStream append(char c) {
         String header = getHeader();
         real.print(header + c);
-        if (this.writeToSystemOut) java.lang.System.out.print(header + c);
+        if (this.writeToSystemOut) java.lang.System.out.print(label + header + c);
         return this;
     }
 
     public PrintStream append(CharSequence csq) {
         String header = getHeader();
         real.print(header + csq);
-        if (this.writeToSystemOut) java.lang.System.out.print(header + csq);
+        if (this.writeToSystemOut) java.lang.System.out.print(label + header + csq);
         return this;
     }
 
     public PrintStream append(CharSequence csq, int start, int end) {
         String header = getHeader();
         real.print(header + csq.subSequence(start, end).toString());
-        if (this.writeToSystemOut) java.lang.System.out.print(header + csq.subSequence(start, end).toString());
+        if (this.writeToSystemOut) java.lang.System.out.print(label + header + csq.subSequence(start, end).toString());
         return this;
     }
 
@@ -193,14 +201,14 @@ public class RoboPrintStream extends PrintStream {
     public PrintStream format(String format, Object... args) {
         String header = getHeader();
         real.print(header + String.format(format, args));
-        if (this.writeToSystemOut) java.lang.System.out.print(header + String.format(format, args));
+        if (this.writeToSystemOut) java.lang.System.out.print(label + header + String.format(format, args));
         return this;
     }
 
     public PrintStream printf(String format, Object... args) {
         String header = getHeader();
         real.printf(header + format, args);
-        if (this.writeToSystemOut) java.lang.System.out.printf(header + format, args);
+        if (this.writeToSystemOut) java.lang.System.out.print(label + String.format(header + format, args));
         return this;
     }
 
@@ -210,14 +218,14 @@ public class RoboPrintStream extends PrintStream {
         System.arraycopy(header, 0, buf2, 0, header.length);
         System.arraycopy(buf, off, buf2, header.length, len);
         real.write(buf2, 0, header.length + len);
-        if (this.writeToSystemOut) java.lang.System.out.write(buf2, 0, header.length + len);
+        if (this.writeToSystemOut) copyToSystemOut(buf2, 0, header.length + len);
     }
 
     public void write(int b) {
         String s = getHeader() + (char) b;
         byte[] buf = s.getBytes();
         real.write(buf, 0, buf.length);
-        if (this.writeToSystemOut) java.lang.System.out.write(buf, 0, buf.length);
+        if (this.writeToSystemOut) copyToSystemOut(buf, 0, buf.length);
     }
 
     //**************************
@@ -240,6 +248,14 @@ public class RoboPrintStream extends PrintStream {
         this.real.setTeam(team);
     }
 
+    private void copyToSystemOut(byte[] buf, int off, int len) {
+        byte[] prefix = label.getBytes();
+        byte[] labelled = new byte[prefix.length + len];
+        System.arraycopy(prefix, 0, labelled, 0, prefix.length);
+        System.arraycopy(buf, off, labelled, prefix.length, len);
+        java.lang.System.out.write(labelled, 0, labelled.length);
+    }
+
     private String getHeader() {
         String s = "[" + team + ": #" + id + "@" + round + "] ";
         real.increaseByteLimit(s.length());
@@ -50,6 +50,39 @@ public class Config {
         defaults.setProperty("bc.server.validate-maps", "true");
         defaults.setProperty("bc.server.alternate-order", "false");
 
+        // The number of matches of a game to run at once. Only games that
+        // aren't interactive or shown to a client are run in parallel; their
+        // matches aren't recorded, and what they print is labelled with the
+        // match it comes from.
+        defaults.setProperty("bc.server.match-threads", "1");
+
+        // Whether to build replays. Without them, matches only report
+        // their results, which is all batch runs need.
+        defaults.setProperty("bc.server.record", "true");
+
+        // A file to append one JSON line per finished match to; empty to
+        // disable.
+        defaults.setProperty("bc.server.results-file", "");
+
+        // A directory to cache match results in, keyed by the teams' classes,
+        // the map, the seed and the engine; empty to disable. Only used when
+        // nothing is recorded: with bc.server.record=false and no client, or
+        // for matches run in parallel.
+        defaults.setProperty("bc.server.result-cache", "");
+
+        // Whether to stop a game's matches early once a sequential
+        // probability ratio test between the two teams concludes. Team A is
+        // the candidate: H0 is that it is sprt-elo0 stronger than team B, H1
+        // that it is sprt-elo1 stronger, with error rates alpha and beta.
+        defaults.setProperty("bc.server.sprt", "false");
+        defaults.setProperty("bc.server.sprt-elo0", "0");
+        defaults.setProperty("bc.server.sprt-elo1", "10");
+        defaults.setProperty("bc.server.sprt-alpha", "0.05");
+        defaults.setProperty("bc.server.sprt-beta", "0.05");
+
+        // The local port non-Java bots connect to.
+        defaults.setProperty("bc.server.crossplay-port", "27185");
+
 
 
         // Whether to write robot player output to match files / system out
@@ -63,11 +96,57 @@ public class Config {
         defaults.setProperty("bc.engine.enable-profiler", "false");
         defaults.setProperty("bc.engine.show-indicators", "true");
 
+        // How robot players run in turns with the engine: "threads" gives
+        // each player its own thread; "continuations" (experimental) runs
+        // them all on the engine thread, and needs the JVM option
+        // --add-exports java.base/jdk.internal.vm=ALL-UNNAMED. Like
+        // bc.engine.virtual-threads, continuations can change results.
+        defaults.setProperty("bc.engine.execution", "threads");
+
+        // With bc.engine.execution=threads, whether to run robot players on
+        // virtual threads instead of one platform thread each. Cheaper to
+        // spawn, and lets crowded matches run without hundreds of OS threads.
+        // Can change results: a player can't pause in a static initializer
+        // there, so it runs on into later turns, and is killed after 100.
+        defaults.setProperty("bc.engine.virtual-threads", "false");
+
+        // How many times the engine checks whether a robot has finished its
+        // turn before going to sleep. Spinning saves a wakeup per robot per
+        // round when turns are short, but only helps with spare CPUs.
+        defaults.setProperty("bc.engine.handoff-spins", "0");
+
+        // How many sandboxes (robot classloaders) to prepare per team in the
+        // background ahead of spawns; 0 to create them as robots spawn.
+        defaults.setProperty("bc.engine.sandbox-pool-size", "8");
+
+        // Whether a team's robots share one copy of the instrumented library
+        // classes (java.util and friends) instead of each loading its own.
+        // Saves metaspace and class loading as robots spawn, but a library
+        // class's static state is then visible to every robot on the team,
+        // and only the first robot to use a class pays for initializing it.
+        // A robot that runs out of bytecodes in a library class's static
+        // initializer runs on into its next turns instead of pausing there.
+        defaults.setProperty("bc.engine.share-library-classes", "false");
+
+        // A directory to cache instrumented classes in between runs, keyed
+        // by the original classes, the engine and how they were
+        // instrumented; empty to disable.
+        defaults.setProperty("bc.engine.instrumentation-cache", "");
+
+        // Whether to instrument a team's classes, and every library class
+        // they could reach, in parallel before a match starts, rather than
+        // on the engine thread the first time a robot loads each one. That
+        // is far more classes than robots usually load, so it makes setup
+        // slower; best paired with bc.engine.instrumentation-cache.
+        defaults.setProperty("bc.engine.preinstrument", "false");
+
         defaults.setProperty("bc.game.team-a", "team000");
         defaults.setProperty("bc.game.team-b", "team000");
         defaults.setProperty("bc.game.maps", "glass");
         defaults.setProperty("bc.game.map-path", "maps");
         defaults.setProperty("bc.game.state", "0,0");
+        // Seed for everything random in a match; empty to use each map's own seed.
+        defaults.setProperty("bc.game.seed", "");
 
         defaults.setProperty("match.zombie-armageddon", "false");
 
@@ -120,6 +199,16 @@ public class Config {
         addArgs(args);
     }
 
+    /**
+     * Creates a new Config that falls back to another one for every option
+     * it doesn't set itself.
+     *
+     * @param parent the configuration to fall back to
+     */
+    public Config(Config parent) {
+        properties = new Properties(parent.properties);
+    }
+
     /**
      * Processes command-line arguments, converting them to properties and
      * adding them to the local options.
@@ -200,6 +289,13 @@ public class Config {
         return Integer.valueOf(this.properties.getProperty(key, "0"));
     }
 
+    /**
+     * Gets a configuration value (as a double).
+     */
+    public double getDouble(String key) {
+        return Double.valueOf(this.properties.getProperty(key, "0"));
+    }
+
     /**
      * Gets a configuration value (as a boolean).
      */
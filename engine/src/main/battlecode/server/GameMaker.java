@@ -108,12 +108,30 @@ public class GameMaker {
      */
     private final boolean showIndicators;
 
+    /**
+     * Whether to build flatbuffers at all. When false, the state machine is
+     * still enforced, but every event is dropped without being serialized,
+     * for batch runs that only care about who won.
+     */
+    private final boolean recording;
+
     /**
      * @param gameInfo       the mapping of teams to bytes
      * @param packetSink     the NetServer to send packets to
      * @param showIndicators whether to write indicator dots and lines to replay
      */
     public GameMaker(final GameInfo gameInfo, final NetServer packetSink, final boolean showIndicators) {
+        this(gameInfo, packetSink, showIndicators, true);
+    }
+
+    /**
+     * @param gameInfo       the mapping of teams to bytes
+     * @param packetSink     the NetServer to send packets to
+     * @param showIndicators whether to write indicator dots and lines to replay
+     * @param recording      whether to build the replay at all
+     */
+    public GameMaker(final GameInfo gameInfo, final NetServer packetSink, final boolean showIndicators,
+                     final boolean recording) {
         this.state = State.GAME_HEADER;
 
         this.gameInfo = gameInfo;
@@ -131,7 +149,8 @@ public class GameMaker {
 
         this.matchMaker = new MatchMaker();
 
-        this.showIndicators = showIndicators;
+        this.recording = recording;
+        this.showIndicators = showIndicators && recording;
     }
 
     /**
@@ -160,6 +179,9 @@ public class GameMaker {
      * @return game as a packed flatbuffer byte array.
      */
     public byte[] toBytes() {
+        if (!recording) {
+            throw new RuntimeException("Can't convert a game that wasn't recorded");
+        }
         if (finishedGame == null) {
             assertState(State.DONE);
 
@@ -214,6 +236,9 @@ public class GameMaker {
      * @param perBuilder called with each builder;
      */
     private void applyToBuilders(Consumer<FlatBufferBuilderWrapper> perBuilder) {
+        if (!recording) {
+            return;
+        }
         perBuilder.accept(fileBuilder);
         if (packetSink != null) {
             perBuilder.accept(packetBuilder);
@@ -227,6 +252,10 @@ public class GameMaker {
      *                   mutate state.
      */
     private void createEvent(ToIntFunction<FlatBufferBuilderWrapper> perBuilder) {
+        if (!recording) {
+            return;
+        }
+
         // make file event and add its offset to the list
         int eventAP = perBuilder.applyAsInt(fileBuilder);
         events.add(eventAP);
@@ -401,7 +430,9 @@ public class GameMaker {
                         MatchHeader.createMatchHeader(builder, map, gameMap.getRounds()));
             });
 
-            matchHeaders.add(events.size() - 1);
+            if (recording) {
+                matchHeaders.add(events.size() - 1);
+            }
 
             clearMatchData();
         }
@@ -465,7 +496,9 @@ public class GameMaker {
                                 profilerFilesOffset));
             });
 
-            matchFooters.add(events.size() - 1);
+            if (recording) {
+                matchFooters.add(events.size() - 1);
+            }
         }
 
         public void startRound(int roundNum) {
@@ -698,6 +731,9 @@ public class GameMaker {
         }
 
         public void addTeamInfo(Team team, int cheeseTransferred, int catDamage, int aliveRatKings, int aliveBabyRats, int amountDirtCollected, int ratTrapCount, int catTrapCount) {
+            if (!recording) {
+                return;
+            }
             teamIDs.add(TeamMapping.id(team));
             teamCheeseTransferred.add(cheeseTransferred);
             teamCatDamage.add(catDamage);
@@ -755,6 +791,9 @@ public class GameMaker {
         }
 
         public void addDied(int id) {
+            if (!recording) {
+                return;
+            }
             diedIds.add(id);
         }
 
@@ -1,11 +1,35 @@
 package battlecode.server;
 
+import java.io.BufferedReader;
 import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import battlecode.crossplay.CrossPlayLanguage;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
 
 public class Main {
 
+    /**
+     * The options that describe a single game (see createGameInfo), and so
+     * may be set by a daemon's jobs. Everything else configures the server
+     * as a whole and can only be set when the daemon starts.
+     */
+    private static final Set<String> GAME_OPTIONS = new HashSet<>(Arrays.asList(
+            "bc.game.team-a", "bc.game.team-a.url", "bc.game.team-a.package", "bc.game.team-a.language",
+            "bc.game.team-b", "bc.game.team-b.url", "bc.game.team-b.package", "bc.game.team-b.language",
+            "bc.game.maps", "bc.game.best-of-three", "bc.server.save-file"
+    ));
+
     private static boolean runHeadless(Config options) {
         try {
             final Server server = new Server(
@@ -13,95 +37,186 @@ public class Main {
                     false
             );
 
-            final String teamA = options.get("bc.game.team-a");
-            if (teamA == null) {
-                System.err.println("Can't run match without bc.game.team-a set!");
+            final GameInfo game = createGameInfo(options);
+            if (game == null) {
                 return false;
             }
 
-            final String teamAURL;
-            if (options.get("bc.game.team-a.url") != null) {
-                teamAURL = options.get("bc.game.team-a.url");
-            } else {
-                System.err.println("Can't run match without bc.game.team-a.url set!");
-                return false;
-            }
+            server.addGameNotification(game);
+            server.terminateNotification();
 
-            final String teamAPackage;
-            if (options.get("bc.game.team-a.package") != null) {
-                teamAPackage = options.get("bc.game.team-a.package");
-            } else {
-                teamAPackage = teamA;
-            }
+            server.run();
 
-            final CrossPlayLanguage teamALanguage;
-            if (options.get("bc.game.team-a.language") != null) {
-                teamALanguage = CrossPlayLanguage.parse(options.get("bc.game.team-a.language"));
-            } else {
-                teamALanguage = CrossPlayLanguage.JAVA;
-            }
+            return server.getState() == ServerState.FINISHED;
+        } catch (Exception e) {
+            ErrorReporter.report(e, true);
+            return false;
+        }
+    }
 
-            final String teamB = options.get("bc.game.team-b");
-            if (teamB == null) {
-                System.err.println("Can't run match without bc.game.team-b set!");
-                return false;
-            }
+    /**
+     * Keeps a single server running and feeds it games read from standard
+     * input, one per line, until standard input is closed.
+     *
+     * Every line is a JSON object whose keys are the options that describe
+     * a game (bc.game.team-a, bc.game.maps, bc.server.save-file, ...; see
+     * GAME_OPTIONS). Options a line leaves out fall back to the daemon's own
+     * configuration. Lines that set any other option (the seed, the map
+     * path, recording, ...) are rejected, since the server would silently
+     * ignore it. The server announces each game it finishes or fails.
+     */
+    private static boolean runDaemon(Config options) {
+        try {
+            final Server server = new Server(
+                    options,
+                    false,
+                    true
+            );
 
-            final String teamBURL;
-            if (options.get("bc.game.team-b.url") != null) {
-                teamBURL = options.get("bc.game.team-b.url");
-            } else {
-                System.err.println("Can't run match without bc.game.team-b.url set!");
-                return false;
-            }
+            final Thread serverThread = new Thread(server, "server");
+            serverThread.start();
 
-            final String teamBPackage;
-            if (options.get("bc.game.team-b.package") != null) {
-                teamBPackage = options.get("bc.game.team-b.package");
-            } else {
-                teamBPackage = teamB;
-            }
+            final ObjectMapper objectMapper = new ObjectMapper();
+            final BufferedReader in = new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8));
 
-            final CrossPlayLanguage teamBLanguage;
-            if (options.get("bc.game.team-b.language") != null) {
-                teamBLanguage = CrossPlayLanguage.parse(options.get("bc.game.team-b.language"));
-            } else {
-                teamBLanguage = CrossPlayLanguage.JAVA;
-            }
+            Server.say("Daemon ready");
 
-            final String mapsCommaSep = options.get("bc.game.maps");
-            if (mapsCommaSep == null) {
-                System.err.println("Can't run match without bc.game.maps set!");
-                return false;
-            }
-            final String[] maps = mapsCommaSep.split(",");
+            String line;
+            while ((line = in.readLine()) != null) {
+                line = line.trim();
+                if (line.isEmpty()) {
+                    continue;
+                }
 
-            File saveFile;
-            if (options.get("bc.server.save-file") != null) {
-                saveFile = new File(options.get("bc.server.save-file"));
-            } else {
-                System.err.println("Can't run match without bc.server.save-file set!");
-                return false;
+                final GameInfo game;
+                try {
+                    final JsonNode job = objectMapper.readTree(line);
+                    if (job == null || !job.isObject()) {
+                        Server.warn("Ignoring job that isn't a JSON object: " + line);
+                        continue;
+                    }
+
+                    final Config jobOptions = new Config(options);
+                    final List<String> serverOptions = new ArrayList<>();
+                    for (Iterator<Map.Entry<String, JsonNode>> it = job.fields(); it.hasNext(); ) {
+                        Map.Entry<String, JsonNode> field = it.next();
+                        if (!GAME_OPTIONS.contains(field.getKey())) {
+                            serverOptions.add(field.getKey());
+                        }
+                        jobOptions.set(field.getKey(), field.getValue().asText());
+                    }
+                    if (!serverOptions.isEmpty()) {
+                        Server.warn("Ignoring job that sets options only the daemon's command line can ("
+                                + String.join(", ", serverOptions) + "): " + line);
+                        continue;
+                    }
+                    game = createGameInfo(jobOptions);
+                } catch (IOException | IllegalArgumentException e) {
+                    Server.warn("Ignoring malformed job: " + line);
+                    continue;
+                }
+
+                if (game != null) {
+                    server.addGameNotification(game);
+                }
             }
 
-            server.addGameNotification(new GameInfo(
-                    teamA, teamALanguage, teamAPackage, teamAURL,
-                    teamB, teamBLanguage, teamBPackage, teamBURL,
-                    maps,
-                    saveFile,
-                    options.getBoolean("bc.game.best-of-three") && maps.length == 3
-            ));
             server.terminateNotification();
+            serverThread.join();
 
-            server.run();
-
-            return server.getState() == ServerState.FINISHED;
+            return true;
         } catch (Exception e) {
             ErrorReporter.report(e, true);
             return false;
         }
     }
 
+    /**
+     * Builds the game described by a set of options.
+     *
+     * @return the game, or null if a required option is missing
+     */
+    private static GameInfo createGameInfo(Config options) {
+        final String teamA = options.get("bc.game.team-a");
+        if (teamA == null) {
+            System.err.println("Can't run match without bc.game.team-a set!");
+            return null;
+        }
+
+        final String teamAURL;
+        if (options.get("bc.game.team-a.url") != null) {
+            teamAURL = options.get("bc.game.team-a.url");
+        } else {
+            System.err.println("Can't run match without bc.game.team-a.url set!");
+            return null;
+        }
+
+        final String teamAPackage;
+        if (options.get("bc.game.team-a.package") != null) {
+            teamAPackage = options.get("bc.game.team-a.package");
+        } else {
+            teamAPackage = teamA;
+        }
+
+        final CrossPlayLanguage teamALanguage;
+        if (options.get("bc.game.team-a.language") != null) {
+            teamALanguage = CrossPlayLanguage.parse(options.get("bc.game.team-a.language"));
+        } else {
+            teamALanguage = CrossPlayLanguage.JAVA;
+        }
+
+        final String teamB = options.get("bc.game.team-b");
+        if (teamB == null) {
+            System.err.println("Can't run match without bc.game.team-b set!");
+            return null;
+        }
+
+        final String teamBURL;
+        if (options.get("bc.game.team-b.url") != null) {
+            teamBURL = options.get("bc.game.team-b.url");
+        } else {
+            System.err.println("Can't run match without bc.game.team-b.url set!");
+            return null;
+        }
+
+        final String teamBPackage;
+        if (options.get("bc.game.team-b.package") != null) {
+            teamBPackage = options.get("bc.game.team-b.package");
+        } else {
+            teamBPackage = teamB;
+        }
+
+        final CrossPlayLanguage teamBLanguage;
+        if (options.get("bc.game.team-b.language") != null) {
+            teamBLanguage = CrossPlayLanguage.parse(options.get("bc.game.team-b.language"));
+        } else {
+            teamBLanguage = CrossPlayLanguage.JAVA;
+        }
+
+        final String mapsCommaSep = options.get("bc.game.maps");
+        if (mapsCommaSep == null) {
+            System.err.println("Can't run match without bc.game.maps set!");
+            return null;
+        }
+        final String[] maps = mapsCommaSep.split(",");
+
+        File saveFile;
+        if (options.get("bc.server.save-file") != null) {
+            saveFile = new File(options.get("bc.server.save-file"));
+        } else {
+            System.err.println("Can't run match without bc.server.save-file set!");
+            return null;
+        }
+
+        return new GameInfo(
+                teamA, teamALanguage, teamAPackage, teamAURL,
+                teamB, teamBLanguage, teamBPackage, teamBURL,
+                maps,
+                saveFile,
+                options.getBoolean("bc.game.best-of-three") && maps.length == 3
+        );
+    }
+
     public static Config setupConfig(String[] args) {
         try {
             Config options = new Config(args);
@@ -126,6 +241,8 @@ public class Main {
         switch (mode) {
             case HEADLESS:
                 return runHeadless(options);
+            case DAEMON:
+                return runDaemon(options);
             default:
                 return false;
         }
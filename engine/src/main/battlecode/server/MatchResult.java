@@ -0,0 +1,157 @@
+package battlecode.server;
+
+import battlecode.common.Team;
+import battlecode.world.DominationFactor;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+/**
+ * The outcome of a single match, as reported by the server once the match's
+ * GameWorld has finished running.
+ */
+public class MatchResult {
+
+    private final String mapName;
+    private final String teamAPackage;
+    private final String teamBPackage;
+    private final boolean teamsReversed;
+    private final Team winner;
+    private final DominationFactor dominationFactor;
+    private final int finalRound;
+    private final long wallTimeMillis;
+    private final long[] totalBytecodes;
+    private final long[] playerTimes;
+
+    /**
+     * @param mapName          the map the match was played on
+     * @param teamAPackage     the package of team A
+     * @param teamBPackage     the package of team B
+     * @param teamsReversed    whether team A spawned on team B's side of the map
+     * @param winner           the winner of the match
+     * @param dominationFactor how the match was won
+     * @param finalRound       the last round of the match
+     * @param wallTimeMillis   how long the match took to run, in ms
+     * @param totalBytecodes   the bytecodes used by teams A and B
+     * @param playerTimes      the time teams A and B spent executing, in ns
+     */
+    public MatchResult(String mapName, String teamAPackage, String teamBPackage, boolean teamsReversed,
+                       Team winner, DominationFactor dominationFactor, int finalRound, long wallTimeMillis,
+                       long[] totalBytecodes, long[] playerTimes) {
+        this.mapName = mapName;
+        this.teamAPackage = teamAPackage;
+        this.teamBPackage = teamBPackage;
+        this.teamsReversed = teamsReversed;
+        this.winner = winner;
+        this.dominationFactor = dominationFactor;
+        this.finalRound = finalRound;
+        this.wallTimeMillis = wallTimeMillis;
+        this.totalBytecodes = totalBytecodes;
+        this.playerTimes = playerTimes;
+    }
+
+    public String getMapName() {
+        return mapName;
+    }
+
+    public String getTeamAPackage() {
+        return teamAPackage;
+    }
+
+    public String getTeamBPackage() {
+        return teamBPackage;
+    }
+
+    /**
+     * @return whether team A spawned on team B's side of the map
+     */
+    public boolean isTeamsReversed() {
+        return teamsReversed;
+    }
+
+    public Team getWinner() {
+        return winner;
+    }
+
+    public DominationFactor getDominationFactor() {
+        return dominationFactor;
+    }
+
+    public int getFinalRound() {
+        return finalRound;
+    }
+
+    public long getWallTimeMillis() {
+        return wallTimeMillis;
+    }
+
+    /**
+     * @return the bytecodes used by all of a team's robots over the match
+     */
+    public long getTotalBytecodes(Team team) {
+        return totalBytecodes[team.ordinal()];
+    }
+
+    /**
+     * @return the time a team's players spent executing, in ns
+     */
+    public long getPlayerTime(Team team) {
+        return playerTimes[team.ordinal()];
+    }
+
+    /**
+     * @return the result as a flat JSON object
+     */
+    public ObjectNode toJson(ObjectMapper objectMapper) {
+        ObjectNode record = objectMapper.createObjectNode();
+        record.put("map", mapName);
+        record.put("teamA", teamAPackage);
+        record.put("teamB", teamBPackage);
+        record.put("teamsReversed", teamsReversed);
+        record.put("winner", String.valueOf(winner));
+        record.put("dominationFactor", String.valueOf(dominationFactor));
+        record.put("rounds", finalRound);
+        record.put("wallTimeMillis", wallTimeMillis);
+        record.put("bytecodesA", totalBytecodes[0]);
+        record.put("bytecodesB", totalBytecodes[1]);
+        record.put("playerTimeNanosA", playerTimes[0]);
+        record.put("playerTimeNanosB", playerTimes[1]);
+        return record;
+    }
+
+    /**
+     * Reads a result written by {@link #toJson}.
+     *
+     * @throws IllegalArgumentException if the object isn't a valid result
+     */
+    public static MatchResult fromJson(JsonNode record) {
+        if (record == null || !record.hasNonNull("winner") || !record.hasNonNull("dominationFactor")) {
+            throw new IllegalArgumentException("Not a match result: " + record);
+        }
+        return new MatchResult(
+                record.path("map").asText(),
+                record.path("teamA").asText(),
+                record.path("teamB").asText(),
+                record.path("teamsReversed").asBoolean(),
+                Team.valueOf(record.get("winner").asText()),
+                DominationFactor.valueOf(record.get("dominationFactor").asText()),
+                record.path("rounds").asInt(),
+                record.path("wallTimeMillis").asLong(),
+                new long[] {record.path("bytecodesA").asLong(), record.path("bytecodesB").asLong()},
+                new long[] {record.path("playerTimeNanosA").asLong(), record.path("playerTimeNanosB").asLong()});
+    }
+
+    @Override
+    public String toString() {
+        return "MatchResult{" +
+                "mapName='" + mapName + '\'' +
+                ", teamAPackage='" + teamAPackage + '\'' +
+                ", teamBPackage='" + teamBPackage + '\'' +
+                ", teamsReversed=" + teamsReversed +
+                ", winner=" + winner +
+                ", dominationFactor=" + dominationFactor +
+                ", finalRound=" + finalRound +
+                ", wallTimeMillis=" + wallTimeMillis +
+                '}';
+    }
+}
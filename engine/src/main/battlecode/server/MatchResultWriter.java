@@ -0,0 +1,53 @@
+package battlecode.server;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Writes match results to a file as they come in, one JSON object per line,
+ * so that scripts running the engine don't have to scrape its output.
+ *
+ * Matches may finish on several threads at once; writes are serialized.
+ */
+public class MatchResultWriter implements Closeable {
+
+    private final ObjectMapper objectMapper;
+    private final Writer out;
+
+    /**
+     * Opens a results file, appending to it if it already exists.
+     *
+     * @param file the file to write results to
+     * @throws IOException if the file can't be opened
+     */
+    public MatchResultWriter(File file) throws IOException {
+        this.objectMapper = new ObjectMapper();
+        this.out = new BufferedWriter(new OutputStreamWriter(
+                new FileOutputStream(file, true), StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Writes the result of a match and flushes it to disk.
+     *
+     * @param result the result to write
+     */
+    public synchronized void write(MatchResult result) {
+        ObjectNode record = result.toJson(objectMapper);
+
+        try {
+            out.write(objectMapper.writeValueAsString(record));
+            out.write('\n');
+            out.flush();
+        } catch (IOException e) {
+            ErrorReporter.warn("Couldn't write match result: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        out.close();
+    }
+}
@@ -0,0 +1,127 @@
+package battlecode.server;
+
+import battlecode.common.GameConstants;
+import battlecode.util.ContentHash;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.*;
+import java.security.MessageDigest;
+import java.util.HexFormat;
+
+/**
+ * An on-disk cache of match results, for re-running pairings whose inputs
+ * haven't changed.
+ *
+ * A result is keyed by the content of everything that decides how a match
+ * plays out: both teams' classes (directory or jar), the map file, the seed,
+ * the side order, the engine options that change results (see
+ * OUTCOME_OPTIONS), and the engine itself. Since matches are deterministic
+ * for a seed and those options, a cached result is the result the match
+ * would have had.
+ *
+ * Entries are stored one JSON file per key, so the cache can be shared by
+ * several servers at once.
+ */
+public class ResultCache {
+
+    /**
+     * The options besides the seed that can change how a match plays out:
+     * whether debug methods run, and how robot players are run and load
+     * their classes, which decides when a player stuck in a class
+     * initializer is cut off.
+     */
+    static final String[] OUTCOME_OPTIONS = {
+            "bc.engine.debug-methods",
+            "bc.engine.execution",
+            "bc.engine.virtual-threads",
+            "bc.engine.share-library-classes"
+    };
+
+    private final File directory;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * @param directory the directory to keep results in; created if needed
+     */
+    public ResultCache(File directory) {
+        this.directory = directory;
+        this.objectMapper = new ObjectMapper();
+    }
+
+    /**
+     * Computes the cache key of a match.
+     *
+     * @param game          the game the match is part of
+     * @param mapBytes      the contents of the map file
+     * @param seed          the seed the match will be run with
+     * @param teamsReversed whether team A spawns on team B's side
+     * @param options       the configuration the match will be run with
+     * @return the key, or null if the match can't be cached (teams that
+     *         aren't loaded from a file can't be hashed)
+     * @throws IOException if the team classes can't be read
+     */
+    public String keyFor(GameInfo game, byte[] mapBytes, String seed, boolean teamsReversed,
+                         Config options) throws IOException {
+        if (game.getTeamAURL() == null || game.getTeamBURL() == null) {
+            return null;
+        }
+
+        MessageDigest digest = ContentHash.newDigest();
+        ContentHash.update(digest, GameConstants.SPEC_VERSION);
+        ContentHash.update(digest, ContentHash.ofEngine());
+        ContentHash.update(digest, game.getTeamAPackage());
+        ContentHash.update(digest, String.valueOf(game.getTeamALanguage()));
+        ContentHash.update(digest, ContentHash.ofPath(game.getTeamAURL()));
+        ContentHash.update(digest, game.getTeamBPackage());
+        ContentHash.update(digest, String.valueOf(game.getTeamBLanguage()));
+        ContentHash.update(digest, ContentHash.ofPath(game.getTeamBURL()));
+        ContentHash.update(digest, ContentHash.ofBytes(mapBytes));
+        ContentHash.update(digest, seed);
+        ContentHash.update(digest, String.valueOf(teamsReversed));
+        for (String option : OUTCOME_OPTIONS) {
+            ContentHash.update(digest, option + "=" + options.get(option));
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    /**
+     * @param key the key of the match
+     * @return the cached result of the match, or null if there is none
+     */
+    public MatchResult get(String key) {
+        File file = new File(directory, key + ".json");
+        if (!file.isFile()) {
+            return null;
+        }
+
+        try {
+            return MatchResult.fromJson(objectMapper.readTree(file));
+        } catch (IOException | IllegalArgumentException e) {
+            Server.warn("Ignoring unreadable cached result " + file);
+            return null;
+        }
+    }
+
+    /**
+     * Stores the result of a match. Failures are reported but otherwise
+     * ignored; the cache is only an optimization.
+     *
+     * @param key    the key of the match
+     * @param result the result of the match
+     */
+    public void put(String key, MatchResult result) {
+        try {
+            Files.createDirectories(directory.toPath());
+
+            // Write to a temporary file first so readers never see half a result
+            Path tmp = Files.createTempFile(directory.toPath(), key, ".tmp");
+            Files.write(tmp, objectMapper.writeValueAsBytes(result.toJson(objectMapper)));
+            Files.move(tmp, new File(directory, key + ".json").toPath(),
+                    StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            ErrorReporter.warn("Couldn't cache match result: " + e.getMessage());
+        }
+    }
+}
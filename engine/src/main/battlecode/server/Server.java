@@ -5,11 +5,21 @@ import battlecode.common.Team;
 import battlecode.world.*;
 import battlecode.world.control.*;
 import battlecode.crossplay.CrossPlay;
+import battlecode.crossplay.CrossPlayLanguage;
+import battlecode.instrumenter.SandboxPool;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Runs matches. Specifically, this class forms a pipeline connecting match and
@@ -31,7 +41,7 @@ public class Server implements Runnable {
     /**
      * The state of the match that the server is running (or about to run).
      */
-    private ServerState state;
+    private volatile ServerState state;
 
     /**
      * The options provided to the server via config file and command line.
@@ -44,6 +54,23 @@ public class Server implements Runnable {
      */
     private final boolean interactive;
 
+    /**
+     * Whether to keep serving games after one fails, instead of shutting
+     * down. Used by the daemon, which outlives any single game.
+     */
+    private final boolean persistent;
+
+    /**
+     * Where match results are recorded, or null if they aren't.
+     */
+    private MatchResultWriter resultWriter;
+
+    /**
+     * Where the results of matches are cached between runs, or null if they
+     * aren't.
+     */
+    private ResultCache resultCache;
+
     /**
      * The GameWorld the server is currently operating on.
      */
@@ -57,6 +84,7 @@ public class Server implements Runnable {
      */
     public enum Mode {
         HEADLESS,
+        DAEMON,
     }
 
     /**
@@ -67,9 +95,23 @@ public class Server implements Runnable {
      *                    match run state
      */
     public Server(Config options, boolean interactive) {
+        this(options, interactive, false);
+    }
+
+    /**
+     * Initializes a new server.
+     *
+     * @param options the configuration to use
+     * @param interactive whether to wait for notifications to control the
+     *                    match run state
+     * @param persistent whether to keep running games after one fails, and
+     *                   announce every finished game
+     */
+    public Server(Config options, boolean interactive, boolean persistent) {
         this.gameQueue = new LinkedBlockingQueue<>();
 
         this.interactive = interactive;
+        this.persistent = persistent;
 
         this.options = options;
         this.state = ServerState.NOT_READY;
@@ -126,6 +168,38 @@ public class Server implements Runnable {
             netServer = null;
         }
 
+        final String resultsFile = options.get("bc.server.results-file");
+        if (resultsFile != null && !resultsFile.isEmpty()) {
+            try {
+                resultWriter = new MatchResultWriter(new File(resultsFile));
+            } catch (IOException e) {
+                warn("Couldn't open results file " + resultsFile + ", not recording results");
+            }
+        }
+
+        final String resultCacheDir = options.get("bc.server.result-cache");
+        if (resultCacheDir != null && !resultCacheDir.isEmpty()) {
+            resultCache = new ResultCache(new File(resultCacheDir));
+        }
+
+        try {
+            serveGames(netServer);
+        } finally {
+            if (resultWriter != null) {
+                try {
+                    resultWriter.close();
+                } catch (IOException e) {
+                    warn("Couldn't close results file " + resultsFile);
+                }
+                resultWriter = null;
+            }
+        }
+    }
+
+    /**
+     * Runs games from the game queue until the server is told to terminate.
+     */
+    private void serveGames(NetServer netServer) {
         while (true) {
             final GameInfo currentGame;
             debug("Awaiting match");
@@ -147,66 +221,347 @@ public class Server implements Runnable {
                 return;
             }
 
-            GameMaker gameMaker = new GameMaker(currentGame, netServer, options.getBoolean("bc.engine.show-indicators"));
+            GameMaker gameMaker = new GameMaker(currentGame, netServer, options.getBoolean("bc.engine.show-indicators"),
+                                                options.getBoolean("bc.server.record"));
             gameMaker.makeGameHeader();
 
             debug("Running: "+currentGame);
 
-            CrossPlay crossPlayServer = new CrossPlay();
+            CrossPlay crossPlayServer = new CrossPlay(options.getInt("bc.server.crossplay-port"));
 
             try {
-                // Set up our control provider
-                final boolean profilingEnabled = options.getBoolean("bc.engine.enable-profiler");
-                final RobotControlProvider prov = createControlProvider(currentGame, gameMaker, profilingEnabled, crossPlayServer);
-
+                // Profiles only end up in the replay, so don't collect them if there isn't one
+                final boolean profilingEnabled = options.getBoolean("bc.engine.enable-profiler")
+                        && options.getBoolean("bc.server.record");
                 final boolean checkMapGuarantees = options.getBoolean("bc.server.validate-maps");
                 final boolean alternateOrder = options.getBoolean("bc.server.alternate-order");
+                final int matchThreads = options.getInt("bc.server.match-threads");
+                final Sprt sprt = Sprt.fromConfig(options);
 
-                // Count wins
-                int aWins = 0, bWins = 0;
-
-                // Loop through the maps in the current game
-                boolean teamsReversed = false;
-                for (int matchIndex = 0; matchIndex < currentGame.getMaps().length; matchIndex++) {
-                    Team winner;
-
-                    try {
-                        winner = runMatch(currentGame, matchIndex, prov, gameMaker, checkMapGuarantees, teamsReversed);
-                        if (alternateOrder) {teamsReversed = !teamsReversed;}
-                    } catch (Exception e) {
-                        ErrorReporter.report(e);
-                        this.state = ServerState.ERROR;
-                        return;
+                final Team winner;
+                try {
+                    final boolean javaOnly = currentGame.getTeamALanguage() == CrossPlayLanguage.JAVA
+                            && currentGame.getTeamBLanguage() == CrossPlayLanguage.JAVA;
+                    // Only the sequential path streams matches to the client
+                    // and waits to be told to start
+                    final boolean streamed = interactive || netServer != null;
+                    if (matchThreads > 1 && !javaOnly) {
+                        // Every match would need its own cross-play connection
+                        warn("Running matches one at a time, since non-Java teams share the cross-play port");
+                    } else if (matchThreads > 1 && streamed) {
+                        warn("Running matches one at a time, since they are being shown to a client");
                     }
 
-                    switch (winner) {
-                        case A:
-                            aWins++;
-                            break;
-                        case B:
-                            bWins++;
-                            break;
-                        default:
-                            warn("Team "+winner+" won???");
+                    if (matchThreads > 1 && javaOnly && !streamed && currentGame.getMaps().length > 1) {
+                        winner = runMatchesInParallel(currentGame, matchThreads, checkMapGuarantees, alternateOrder, sprt);
+                    } else {
+                        // A cached match would be missing from the replay or the client
+                        final boolean recorded = options.getBoolean("bc.server.record") || netServer != null;
+                        winner = runMatchesSequentially(currentGame, gameMaker, crossPlayServer,
+                                profilingEnabled, checkMapGuarantees, alternateOrder, recorded, sprt);
                     }
-
-                    currentWorld = null;
-
-                    if (currentGame.isBestOfThree()) {
-                        if (aWins == 2 || bWins == 2) {
-                            break;
-                        }
+                } catch (Exception e) {
+                    ErrorReporter.report(e);
+                    this.state = ServerState.ERROR;
+                    if (persistent) {
+                        say("Game failed: " + currentGame.getTeamAPackage() + " vs. " + currentGame.getTeamBPackage());
+                        continue;
                     }
+                    return;
                 }
-                Team winner = aWins >= bWins ? Team.A : Team.B;
+
                 gameMaker.makeGameFooter(winner);
                 // gameMaker.writeGame(currentGame.getSaveFile());
+
+                if (persistent) {
+                    say("Game finished: " + currentGame.getTeamAPackage() + " vs. " + currentGame.getTeamBPackage()
+                            + ", winner " + winner);
+                }
             } finally {
                 crossPlayServer.cleanup();
             }
         }
     }
 
+    /**
+     * Runs the matches of a game one after another on the calling thread,
+     * sharing a single control provider and streaming every match through
+     * the game's GameMaker.
+     *
+     * @param recorded whether the matches are recorded or streamed, in which
+     *                 case the result cache isn't used
+     * @param sprt     the test to stop early on, or null to run every match
+     * @return the winner of the game
+     * @throws Exception if any match fails to run
+     */
+    private Team runMatchesSequentially(GameInfo currentGame,
+                                        GameMaker gameMaker,
+                                        CrossPlay crossPlayServer,
+                                        boolean profilingEnabled,
+                                        boolean checkMapGuarantees,
+                                        boolean alternateOrder,
+                                        boolean recorded,
+                                        Sprt sprt) throws Exception {
+        if (recorded && resultCache != null) {
+            warn("Not using the result cache, since the matches are recorded or shown to a client");
+        }
+
+        // Set up our control provider
+        final RobotControlProvider prov = createControlProvider(currentGame, gameMaker, profilingEnabled, crossPlayServer, "",
+                createSandboxPools(currentGame, profilingEnabled));
+
+        // Count wins
+        int aWins = 0, bWins = 0;
+
+        // Loop through the maps in the current game
+        boolean teamsReversed = false;
+        for (int matchIndex = 0; matchIndex < currentGame.getMaps().length; matchIndex++) {
+            final int index = matchIndex;
+            final boolean reversed = teamsReversed;
+            MatchResult result = runRecorded(currentGame, matchIndex, teamsReversed, "", !recorded,
+                    () -> runMatch(currentGame, index, prov, gameMaker, checkMapGuarantees, reversed));
+            if (alternateOrder) {teamsReversed = !teamsReversed;}
+
+            switch (result.getWinner()) {
+                case A:
+                    aWins++;
+                    break;
+                case B:
+                    bWins++;
+                    break;
+                default:
+                    warn("Team "+result.getWinner()+" won???");
+            }
+
+            currentWorld = null;
+
+            if (sprt != null && sprt.addResult(result.getWinner()) != Sprt.Outcome.CONTINUE) {
+                reportSprt(sprt, currentGame.getMaps().length - matchIndex - 1);
+                break;
+            }
+
+            if (currentGame.isBestOfThree()) {
+                if (aWins == 2 || bWins == 2) {
+                    break;
+                }
+            }
+        }
+        if (sprt != null && sprt.getOutcome() == Sprt.Outcome.CONTINUE) {
+            reportSprt(sprt, 0);
+        }
+        return aWins >= bWins ? Team.A : Team.B;
+    }
+
+    /**
+     * Runs the matches of a game on a pool of worker threads. Every match gets
+     * its own GameWorld, GameMaker, control provider and cross-play bridge, so
+     * no engine state is shared between concurrently running matches. Each
+     * worker keeps one sandbox pool per team for the matches it runs, so
+     * sandboxes are still prepared ahead and classes instrumented once per
+     * worker rather than once per match. Results
+     * are consumed in submission order, so the outcome (including best-of-three
+     * cutoffs) is the same as running the matches sequentially.
+     *
+     * Matches run this way are not streamed to the client, and are neither
+     * recorded nor profiled; the game's GameMaker only receives the header
+     * and footer. What the server and robots print is labelled with the
+     * match it comes from.
+     *
+     * @param sprt the test to stop early on, or null to run every match
+     * @return the winner of the game
+     * @throws Exception if any match fails to run
+     */
+    private Team runMatchesInParallel(GameInfo currentGame,
+                                      int matchThreads,
+                                      boolean checkMapGuarantees,
+                                      boolean alternateOrder,
+                                      Sprt sprt) throws Exception {
+        final int numMatches = currentGame.getMaps().length;
+        final AtomicInteger workerCount = new AtomicInteger();
+        final ExecutorService executor = Executors.newFixedThreadPool(Math.min(matchThreads, numMatches), r -> {
+            Thread t = new Thread(r, "match-worker-" + workerCount.getAndIncrement());
+            t.setDaemon(true);
+            return t;
+        });
+
+        // A worker runs its matches one at a time, so it can reuse sandbox pools
+        final ThreadLocal<SandboxPool[]> workerSandboxPools =
+                ThreadLocal.withInitial(() -> createSandboxPools(currentGame, false));
+
+        this.state = ServerState.RUNNING;
+        final List<Future<MatchResult>> futures = new ArrayList<>(numMatches);
+        try {
+            for (int matchIndex = 0; matchIndex < numMatches; matchIndex++) {
+                final int index = matchIndex;
+                final boolean teamsReversed = alternateOrder && matchIndex % 2 == 1;
+                final String label = String.format("[%d %s] ", index + 1, currentGame.getMaps()[index]);
+                futures.add(executor.submit(() -> runRecorded(currentGame, index, teamsReversed, label, true,
+                        () -> runIsolatedMatch(currentGame, index, checkMapGuarantees, teamsReversed, label,
+                                workerSandboxPools.get()))));
+            }
+
+            // Count wins
+            int aWins = 0, bWins = 0;
+
+            for (Future<MatchResult> future : futures) {
+                final MatchResult result;
+                try {
+                    result = future.get();
+                } catch (ExecutionException e) {
+                    Throwable cause = e.getCause();
+                    throw cause instanceof Exception ? (Exception) cause : e;
+                }
+
+                switch (result.getWinner()) {
+                    case A:
+                        aWins++;
+                        break;
+                    case B:
+                        bWins++;
+                        break;
+                    default:
+                        warn("Team "+result.getWinner()+" won???");
+                }
+
+                if (sprt != null && sprt.addResult(result.getWinner()) != Sprt.Outcome.CONTINUE) {
+                    // Matches already running are left to finish (and be
+                    // cached), but their results no longer count
+                    int saved = 0;
+                    for (Future<MatchResult> pending : futures) {
+                        if (pending.cancel(false)) {
+                            saved++;
+                        }
+                    }
+                    reportSprt(sprt, saved);
+                    break;
+                }
+
+                if (currentGame.isBestOfThree()) {
+                    if (aWins == 2 || bWins == 2) {
+                        break;
+                    }
+                }
+            }
+            if (sprt != null && sprt.getOutcome() == Sprt.Outcome.CONTINUE) {
+                reportSprt(sprt, 0);
+            }
+            this.state = ServerState.FINISHED;
+            return aWins >= bWins ? Team.A : Team.B;
+        } finally {
+            // Matches that are no longer needed (best of three or SPRT
+            // already decided, or an earlier match failed) are dropped if
+            // they haven't started yet.
+            for (Future<MatchResult> future : futures) {
+                future.cancel(false);
+            }
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Reports the state of a game's SPRT once it stops being updated.
+     *
+     * @param sprt  the test
+     * @param saved the number of matches that weren't run because of it
+     */
+    private void reportSprt(Sprt sprt, int saved) {
+        say(sprt.describe());
+        if (sprt.getOutcome() != Sprt.Outcome.CONTINUE) {
+            say(saved + (saved == 1 ? " match" : " matches") + " saved by stopping early");
+        }
+    }
+
+    /**
+     * Runs a match unless its result is already cached, then records the
+     * result in the cache and the results file.
+     *
+     * @param label     prepended to what is printed about the match
+     * @param cacheable whether to use the result cache for the match
+     * @param match     runs the match
+     * @return the result of the match
+     * @throws Exception if the match fails to run for some reason
+     */
+    private MatchResult runRecorded(GameInfo currentGame,
+                                    int matchIndex,
+                                    boolean teamsReversed,
+                                    String label,
+                                    boolean cacheable,
+                                    Callable<MatchResult> match) throws Exception {
+        final String cacheKey = cacheable ? resultCacheKey(currentGame, matchIndex, teamsReversed) : null;
+
+        MatchResult result = cacheKey != null ? resultCache.get(cacheKey) : null;
+        if (result != null) {
+            say(label, String.format("%s vs. %s on %s (cached)", currentGame.getTeamAPackage(),
+                    currentGame.getTeamBPackage(), result.getMapName()));
+            say(label, getWinnerString(currentGame, result.getWinner(), result.getFinalRound(),
+                    result.getDominationFactor()));
+        } else {
+            result = match.call();
+            // A match that crashed partway has no winner, and nothing worth caching
+            if (cacheKey != null && result.getWinner() != null) {
+                resultCache.put(cacheKey, result);
+            }
+        }
+
+        if (resultWriter != null) {
+            resultWriter.write(result);
+        }
+        return result;
+    }
+
+    /**
+     * @return the key of a match in the result cache, or null if results
+     *         aren't being cached or the match can't be
+     */
+    private String resultCacheKey(GameInfo currentGame, int matchIndex, boolean teamsReversed) {
+        if (resultCache == null) {
+            return null;
+        }
+
+        final String mapName = currentGame.getMaps()[matchIndex];
+        try {
+            byte[] mapBytes = GameMapIO.loadMapBytes(mapName, new File(options.get("bc.game.map-path")));
+            return resultCache.keyFor(currentGame, mapBytes, options.get("bc.game.seed"), teamsReversed, options);
+        } catch (IOException e) {
+            warn("Not caching match on " + mapName + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Runs a single match with its own GameMaker, control provider and
+     * cross-play bridge, suitable for running on a worker thread. Nothing
+     * would ever read its replay, so none is recorded.
+     *
+     * @param label        prepended to what is printed about the match
+     * @param sandboxPools the sandbox pools of teams A and B, which no other
+     *                     match may be using at the same time
+     * @return the result of the match
+     * @throws Exception if the match fails to run for some reason
+     */
+    private MatchResult runIsolatedMatch(GameInfo currentGame,
+                                         int matchIndex,
+                                         boolean checkMapGuarantees,
+                                         boolean teamsReversed,
+                                         String label,
+                                         SandboxPool[] sandboxPools) throws Exception {
+        final GameMaker gameMaker = new GameMaker(currentGame, null, options.getBoolean("bc.engine.show-indicators"),
+                                                  false);
+        gameMaker.makeGameHeader();
+
+        final CrossPlay crossPlayServer = new CrossPlay(options.getInt("bc.server.crossplay-port"));
+        try {
+            final RobotControlProvider prov = createControlProvider(currentGame, gameMaker, false, crossPlayServer, label,
+                    sandboxPools);
+            final GameWorld world = createWorld(currentGame, matchIndex, prov, gameMaker, checkMapGuarantees, teamsReversed);
+            final MatchResult result = playMatch(currentGame, matchIndex, world, teamsReversed, label);
+            gameMaker.makeGameFooter(result.getWinner());
+            return result;
+        } finally {
+            crossPlayServer.cleanup();
+        }
+    }
+
     // private int locationToIndex(LiveMap liveMap, int x, int y) {
     //     return x + y * liveMap.getWidth();
     // }
@@ -229,33 +584,16 @@ public class Server implements Runnable {
     // }
 
     /**
-     * @return the winner of the match
+     * @return the result of the match
      * @throws Exception if the match fails to run for some reason
      */
-    private Team runMatch(GameInfo currentGame,
-                          int matchIndex,
-                          RobotControlProvider prov,
-                          GameMaker gameMaker, boolean checkMapGuarantees, boolean teamsReversed) throws Exception {
-
-
-        final String mapName = currentGame.getMaps()[matchIndex];
-        final LiveMap loadedMap;
-
-
-        try {
-            loadedMap = GameMapIO.loadMap(mapName, new File(options.get("bc.game.map-path")), teamsReversed);
-        } catch (IOException e) {
-            warn("Couldn't load map " + mapName + ", skipping");
-            throw e;
-        }
+    private MatchResult runMatch(GameInfo currentGame,
+                                 int matchIndex,
+                                 RobotControlProvider prov,
+                                 GameMaker gameMaker, boolean checkMapGuarantees, boolean teamsReversed) throws Exception {
 
         // Create the game world!
-        currentWorld = new GameWorld(loadedMap, prov, gameMaker.getMatchMaker());
-        
-        if (checkMapGuarantees) {
-            // Validate the map
-            currentWorld.getGameMap().assertIsValid();
-        }
+        currentWorld = createWorld(currentGame, matchIndex, prov, gameMaker, checkMapGuarantees, teamsReversed);
 
         // Get started
         if (interactive) {
@@ -270,44 +608,87 @@ public class Server implements Runnable {
             this.state = ServerState.RUNNING;
         }
 
-        long startTime = System.currentTimeMillis();
-        say("-------------------- Match Starting --------------------");
-        say(String.format("%s vs. %s on %s", currentGame.getTeamAPackage(), currentGame.getTeamBPackage(), mapName));
+        MatchResult result = playMatch(currentGame, matchIndex, currentWorld, teamsReversed, "");
+        this.state = ServerState.FINISHED;
+        return result;
+    }
 
-        // If there are more rounds to be run, run them and
-        // and send the round (and optionally stats) bytes to
-        // recipients.
-        while (this.state != ServerState.FINISHED) {
+    /**
+     * Loads the map for a match and creates its game world.
+     *
+     * @throws Exception if the map can't be loaded or is invalid
+     */
+    private GameWorld createWorld(GameInfo currentGame,
+                                  int matchIndex,
+                                  RobotControlProvider prov,
+                                  GameMaker gameMaker, boolean checkMapGuarantees, boolean teamsReversed) throws Exception {
+        final String mapName = currentGame.getMaps()[matchIndex];
+        final LiveMap loadedMap;
 
-            // If not paused/stopped:
-            switch (this.state) {
+        try {
+            loadedMap = GameMapIO.loadMap(mapName, new File(options.get("bc.game.map-path")), teamsReversed);
+        } catch (IOException e) {
+            warn("Couldn't load map " + mapName + ", skipping");
+            throw e;
+        }
 
-                case RUNNING:
-                    GameState state = currentWorld.runRound();
+        final EngineContext context = new EngineContext(options, EngineContext.seedFor(options, loadedMap.getSeed()));
+        GameWorld world = new GameWorld(loadedMap, prov, gameMaker.getMatchMaker(), context);
 
-                    if (GameState.DONE.equals(state)) {
-                        this.state = ServerState.FINISHED;
-                        break;
-                    }
+        if (checkMapGuarantees) {
+            // Validate the map
+            world.getGameMap().assertIsValid();
+        }
 
-                    break;
+        return world;
+    }
 
-                case PAUSED:
-                    Thread.sleep(250);
-                    break;
+    /**
+     * Runs rounds of a game world until it is done. Pausing is honored, but
+     * only the current match's world is touched, so several matches may be
+     * played at once.
+     *
+     * @param label prepended to what is printed about the match
+     * @return the result of the match
+     */
+    private MatchResult playMatch(GameInfo currentGame,
+                                  int matchIndex,
+                                  GameWorld world,
+                                  boolean teamsReversed,
+                                  String label) throws InterruptedException {
+        final String mapName = currentGame.getMaps()[matchIndex];
 
-                default:
-                    break;
+        long startTime = System.currentTimeMillis();
+        say(label, "-------------------- Match Starting --------------------");
+        say(label, String.format("%s vs. %s on %s", currentGame.getTeamAPackage(), currentGame.getTeamBPackage(), mapName));
+
+        // If there are more rounds to be run, run them and
+        // and send the round (and optionally stats) bytes to
+        // recipients.
+        GameState gameState = GameState.RUNNING;
+        while (!GameState.DONE.equals(gameState)) {
+            if (this.state == ServerState.PAUSED) {
+                Thread.sleep(250);
+                continue;
             }
+            gameState = world.runRound();
         }
 
-        say(getWinnerString(currentGame, currentWorld.getWinner(), currentWorld.getCurrentRound()));
-        say("-------------------- Match Finished --------------------");
+        final DominationFactor dom = world.getGameStats().getDominationFactor();
+        say(label, getWinnerString(currentGame, world.getWinner(), world.getCurrentRound(), dom));
+        say(label, "-------------------- Match Finished --------------------");
 
-        double timeDiff = (System.currentTimeMillis() - startTime) / 1000.0;
-        debug(String.format("match completed in %.4g seconds", timeDiff));
+        long timeMillis = System.currentTimeMillis() - startTime;
+        debug(String.format("match completed in %.4g seconds", timeMillis / 1000.0));
 
-        return currentWorld.getWinner();
+        final GameStats stats = world.getGameStats();
+        final MatchResult result = new MatchResult(mapName,
+                currentGame.getTeamAPackage(), currentGame.getTeamBPackage(), teamsReversed,
+                world.getWinner(), dom, world.getCurrentRound(), timeMillis,
+                new long[] {stats.getTotalBytecodes(Team.A), stats.getTotalBytecodes(Team.B)},
+                new long[] {stats.getPlayerTime(Team.A), stats.getPlayerTime(Team.B)});
+
+        return result;
     }
 
     // ******************************
@@ -320,12 +701,16 @@ public class Server implements Runnable {
      * @param game             the game to provide control for
      * @param gameMaker        the game maker containing the output streams for robot logs
      * @param profilingEnabled whether profiling is enabled or not
+     * @param outputLabel      prepended to robot output copied to System.out
+     * @param sandboxPools     the sandbox pools of teams A and B
      * @return a fresh control provider for the game
      */
     private RobotControlProvider createControlProvider(GameInfo game,
                                                        GameMaker gameMaker,
                                                        boolean profilingEnabled,
-                                                       CrossPlay crossPlayServer) {
+                                                       CrossPlay crossPlayServer,
+                                                       String outputLabel,
+                                                       SandboxPool[] sandboxPools) {
         // Strictly speaking, this should probably be somewhere in battlecode.world
         // Whatever
 
@@ -338,9 +723,11 @@ public class Server implements Runnable {
                     game.getTeamAPackage(),
                     game.getTeamALanguage(),
                     crossPlayServer,
-                    game.getTeamAURL(),
+                    sandboxPools[0],
                     gameMaker.getMatchMaker().getOut(),
-                    profilingEnabled
+                    options,
+                    profilingEnabled,
+                    outputLabel
                 )
         );
         teamProvider.registerControlProvider(
@@ -350,9 +737,11 @@ public class Server implements Runnable {
                     game.getTeamBPackage(),
                     game.getTeamBLanguage(),
                     crossPlayServer,
-                    game.getTeamBURL(),
+                    sandboxPools[1],
                     gameMaker.getMatchMaker().getOut(),
-                    profilingEnabled
+                    options,
+                    profilingEnabled,
+                    outputLabel
                 )
         );
         teamProvider.registerControlProvider(
@@ -362,6 +751,20 @@ public class Server implements Runnable {
         return teamProvider;
     }
 
+    /**
+     * Create the sandbox pools of a game's teams.
+     *
+     * @param game             the game to create sandbox pools for
+     * @param profilingEnabled whether profiling is enabled or not
+     * @return the sandbox pools of teams A and B
+     */
+    private SandboxPool[] createSandboxPools(GameInfo game, boolean profilingEnabled) {
+        return new SandboxPool[] {
+                PlayerControlProvider.createSandboxPool(game.getTeamAURL(), options, profilingEnabled),
+                PlayerControlProvider.createSandboxPool(game.getTeamBURL(), options, profilingEnabled)
+        };
+    }
+
     // ******************************
     // ***** GETTER METHODS *********
     // ******************************
@@ -378,7 +781,7 @@ public class Server implements Runnable {
      *
      * @return A string representing the match's winner.
      */
-    public String getWinnerString(GameInfo game, Team winner, int roundNumber) {
+    public String getWinnerString(GameInfo game, Team winner, int roundNumber, DominationFactor dom) {
         String teamName;
 
         switch (winner) {
@@ -401,8 +804,6 @@ public class Server implements Runnable {
         sb.append(" wins (round ").append(roundNumber).append(")");
 
         sb.append("\nReason: ");
-        GameStats stats = currentWorld.getGameStats();
-        DominationFactor dom = stats.getDominationFactor();
 
         switch (dom) {
             case KILL_ALL_RAT_KINGS:
@@ -464,6 +865,19 @@ public class Server implements Runnable {
         }
     }
 
+    /**
+     * Like say(String), but with a label after the [server] tag of every
+     * line, to tell apart matches that run at the same time.
+     *
+     * @param label the label, which may be empty
+     * @param msg the message to display
+     */
+    public static void say(String label, String msg) {
+        for (String line : msg.split("\n")) {
+            System.out.printf("[server] %s%s\n", label, line);
+        }
+    }
+
     /**
      * This method is used to display debugging messages with formatted output.
      *
@@ -0,0 +1,165 @@
+package battlecode.server;
+
+import battlecode.common.Team;
+
+/**
+ * A sequential probability ratio test on the Elo difference between team A
+ * and team B, updated one match at a time.
+ *
+ * H0 is that A is elo0 stronger than B, H1 that it is elo1 stronger. After
+ * each match the log-likelihood ratio of the results under H1 vs. H0 is
+ * compared against bounds derived from alpha (the chance of accepting H1
+ * when H0 holds) and beta (the chance of accepting H0 when H1 holds). Once
+ * it crosses either bound, further matches won't change the verdict.
+ *
+ * Matches always have a winner, so each match is a Bernoulli trial with
+ * A's expected score under the logistic Elo model.
+ */
+public class Sprt {
+
+    /**
+     * The state of the test.
+     */
+    public enum Outcome {
+        /**
+         * Neither bound has been reached yet.
+         */
+        CONTINUE,
+        /**
+         * A is more likely elo0 than elo1 stronger than B.
+         */
+        ACCEPT_H0,
+        /**
+         * A is more likely elo1 than elo0 stronger than B.
+         */
+        ACCEPT_H1
+    }
+
+    private final double elo0;
+    private final double elo1;
+    private final double lowerBound;
+    private final double upperBound;
+
+    /**
+     * Log-likelihood ratio contributed by a win and a loss for A.
+     */
+    private final double winLlr;
+    private final double lossLlr;
+
+    private int wins;
+    private int losses;
+    private Outcome outcome;
+
+    /**
+     * @param elo0  the Elo difference (A minus B) under H0
+     * @param elo1  the Elo difference under H1; must be greater than elo0
+     * @param alpha the false positive rate
+     * @param beta  the false negative rate
+     */
+    public Sprt(double elo0, double elo1, double alpha, double beta) {
+        if (!(elo1 > elo0)) {
+            throw new IllegalArgumentException("SPRT needs elo1 > elo0, got " + elo0 + ", " + elo1);
+        }
+        if (!(alpha > 0 && alpha < 1 && beta > 0 && beta < 1)) {
+            throw new IllegalArgumentException("SPRT alpha and beta must be in (0, 1), got " + alpha + ", " + beta);
+        }
+
+        this.elo0 = elo0;
+        this.elo1 = elo1;
+        this.lowerBound = Math.log(beta / (1 - alpha));
+        this.upperBound = Math.log((1 - beta) / alpha);
+
+        double p0 = expectedScore(elo0);
+        double p1 = expectedScore(elo1);
+        this.winLlr = Math.log(p1 / p0);
+        this.lossLlr = Math.log((1 - p1) / (1 - p0));
+
+        this.outcome = Outcome.CONTINUE;
+    }
+
+    /**
+     * Creates the test configured by bc.server.sprt-elo0, -elo1, -alpha and
+     * -beta.
+     *
+     * @return the test, or null if bc.server.sprt isn't set
+     */
+    public static Sprt fromConfig(Config options) {
+        if (!options.getBoolean("bc.server.sprt")) {
+            return null;
+        }
+        return new Sprt(
+                options.getDouble("bc.server.sprt-elo0"),
+                options.getDouble("bc.server.sprt-elo1"),
+                options.getDouble("bc.server.sprt-alpha"),
+                options.getDouble("bc.server.sprt-beta")
+        );
+    }
+
+    /**
+     * @param elo an Elo difference
+     * @return the expected score of the stronger side
+     */
+    private static double expectedScore(double elo) {
+        return 1 / (1 + Math.pow(10, -elo / 400));
+    }
+
+    /**
+     * Adds the result of a match. Results added after the test has
+     * concluded are counted but don't change the outcome.
+     *
+     * @param winner the winner of the match
+     * @return the outcome of the test so far
+     */
+    public Outcome addResult(Team winner) {
+        if (winner == Team.A) {
+            wins++;
+        } else if (winner == Team.B) {
+            losses++;
+        }
+
+        if (outcome == Outcome.CONTINUE) {
+            double llr = getLogLikelihoodRatio();
+            if (llr >= upperBound) {
+                outcome = Outcome.ACCEPT_H1;
+            } else if (llr <= lowerBound) {
+                outcome = Outcome.ACCEPT_H0;
+            }
+        }
+        return outcome;
+    }
+
+    public Outcome getOutcome() {
+        return outcome;
+    }
+
+    public double getLogLikelihoodRatio() {
+        return wins * winLlr + losses * lossLlr;
+    }
+
+    public double getLowerBound() {
+        return lowerBound;
+    }
+
+    public double getUpperBound() {
+        return upperBound;
+    }
+
+    /**
+     * @return a one-line summary of the test
+     */
+    public String describe() {
+        final String verdict;
+        switch (outcome) {
+            case ACCEPT_H1:
+                verdict = String.format("accepted H1 (A is at least %+.1f Elo)", elo1);
+                break;
+            case ACCEPT_H0:
+                verdict = String.format("accepted H0 (A is at most %+.1f Elo)", elo0);
+                break;
+            default:
+                verdict = "inconclusive";
+        }
+        return String.format("SPRT %s after %d-%d, LLR %.3f in [%.3f, %.3f]",
+                verdict, wins, losses, getLogLikelihoodRatio(), lowerBound, upperBound);
+    }
+}
@@ -0,0 +1,122 @@
+package battlecode.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.CodeSource;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * SHA-256 hashes of the things that decide what the engine does: class
+ * files, jars and directories of them, and the engine's own classes. Used
+ * to key caches that survive between runs.
+ */
+public final class ContentHash {
+
+    /**
+     * Hash of the engine's own classes; computed once per JVM.
+     */
+    private static String engineHash;
+
+    private ContentHash() {}
+
+    /**
+     * @return a hash of the classes the engine was loaded from
+     * @throws IOException if they can't be found or read
+     */
+    public static synchronized String ofEngine() throws IOException {
+        if (engineHash == null) {
+            CodeSource source = ContentHash.class.getProtectionDomain().getCodeSource();
+            URL location = source == null ? null : source.getLocation();
+            if (location == null) {
+                throw new IOException("Can't find the engine's classes");
+            }
+            try {
+                engineHash = ofPath(Paths.get(location.toURI()).toString());
+            } catch (URISyntaxException e) {
+                throw new IOException("Can't find the engine's classes", e);
+            }
+        }
+        return engineHash;
+    }
+
+    /**
+     * Hashes a jar, or every file under a directory (including their
+     * relative paths, in a fixed order).
+     *
+     * @param path a file or directory, or a file: URL of one
+     * @return the hash of its contents
+     */
+    public static String ofPath(String path) throws IOException {
+        Path root = path.startsWith("file:") ? Paths.get(URI.create(path)) : Paths.get(path);
+        MessageDigest digest = newDigest();
+
+        if (Files.isDirectory(root)) {
+            List<Path> files;
+            try (Stream<Path> walk = Files.walk(root)) {
+                files = walk.filter(Files::isRegularFile).sorted().collect(Collectors.toList());
+            }
+            for (Path file : files) {
+                update(digest, root.relativize(file).toString().replace(File.separatorChar, '/'));
+                digestFile(digest, file);
+            }
+        } else {
+            digestFile(digest, root);
+        }
+
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    /**
+     * @return the hash of some bytes
+     */
+    public static String ofBytes(byte[] bytes) {
+        return HexFormat.of().formatHex(newDigest().digest(bytes));
+    }
+
+    private static void digestFile(MessageDigest digest, Path file) throws IOException {
+        byte[] buffer = new byte[8192];
+        try (InputStream in = Files.newInputStream(file)) {
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                digest.update(buffer, 0, read);
+            }
+        }
+    }
+
+    /**
+     * Adds a length-prefixed string to a digest, so that adjacent fields
+     * can't run into each other.
+     */
+    public static void update(MessageDigest digest, String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        digest.update((byte) (bytes.length >>> 24));
+        digest.update((byte) (bytes.length >>> 16));
+        digest.update((byte) (bytes.length >>> 8));
+        digest.update((byte) bytes.length);
+        digest.update(bytes);
+    }
+
+    /**
+     * @return a new SHA-256 digest
+     */
+    public static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException("SHA-256 isn't supported on this system??", e);
+        }
+    }
+}
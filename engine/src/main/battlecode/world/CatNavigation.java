@@ -0,0 +1,255 @@
+package battlecode.world;
+
+import battlecode.common.Direction;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * The directions cats move in to reach their targets.
+ *
+ * For each target and chirality there is a field giving, for every tile,
+ * the direction a cat whose corner is on that tile should move in to follow
+ * a shortest path to the target, never overlapping a wall or leaving the
+ * map. It's found by a breadth-first search out from the target. A cat
+ * covers two by two tiles, and a chirality 1 cat's tiles and moves are
+ * mirrored by the map's symmetry, so each chirality has its own fields.
+ *
+ * Cats only head for a few tiles, so fields are computed the first time
+ * they're asked for, rather than for every tile when the match starts, and
+ * take a byte per tile. Only the MAX_FIELDS most recently used fields are
+ * kept.
+ *
+ * Fields only depend on the map's size, walls and symmetry, none of which
+ * change during a match, so matches on the same map share a CatNavigation
+ * (see of()) and every match after the first reuses the fields the earlier
+ * ones computed. It's safe to use from several matches at once.
+ */
+public class CatNavigation {
+
+    /**
+     * How many fields are kept at once.
+     */
+    public static final int MAX_FIELDS = 256;
+
+    /**
+     * How many maps' navigations are kept at once.
+     */
+    public static final int MAX_MAPS = 16;
+
+    /**
+     * The navigations of the maps played most recently, least recently
+     * used first.
+     */
+    private static final LinkedHashMap<MapKey, CatNavigation> navigations = new LinkedHashMap<MapKey, CatNavigation>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<MapKey, CatNavigation> eldest) {
+            return size() > MAX_MAPS;
+        }
+    };
+
+    /**
+     * The order the search tries moves in; it decides between paths that
+     * are equally short.
+     */
+    private static final Direction[] SEARCH_ORDER = {
+            Direction.NORTH, Direction.EAST, Direction.SOUTH, Direction.WEST,
+            Direction.NORTHEAST, Direction.SOUTHEAST, Direction.SOUTHWEST, Direction.NORTHWEST
+    };
+
+    /**
+     * The tiles a chirality 0 cat covers, relative to its corner.
+     */
+    private static final Direction[] CAT_TILES = {
+            Direction.CENTER, Direction.NORTH, Direction.NORTHEAST, Direction.EAST
+    };
+
+    private static final Direction[] DIRECTIONS = Direction.values();
+
+    private final int width;
+    private final int height;
+
+    // For each chirality: the moves in search order, the directions back
+    // along them (as stored in fields), and whether a cat fits on each tile.
+    private final int[][] moveX;
+    private final int[][] moveY;
+    private final byte[][] moveBack;
+    private final boolean[][] fits;
+
+    /**
+     * The fields computed so far, by target index * 2 + chirality, least
+     * recently used first. A field holds one more than the ordinal of each
+     * tile's direction, or 0 where the target can't be reached from.
+     */
+    private final LinkedHashMap<Integer, byte[]> fields = new LinkedHashMap<Integer, byte[]>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, byte[]> eldest) {
+            return size() > MAX_FIELDS;
+        }
+    };
+
+    /**
+     * Finds the navigation of a map, shared with every other match on a map
+     * with the same size, walls and symmetry.
+     *
+     * @param width    the width of the map
+     * @param height   the height of the map
+     * @param walls    whether there is a wall on each tile, by index
+     * @param symmetry the symmetry of the map, which mirrors chirality 1 cats
+     * @return the map's navigation
+     */
+    public static CatNavigation of(int width, int height, boolean[] walls, MapSymmetry symmetry) {
+        MapKey key = new MapKey(width, height, walls.clone(), symmetry);
+        synchronized (navigations) {
+            return navigations.computeIfAbsent(key, k -> new CatNavigation(width, height, k.walls, symmetry));
+        }
+    }
+
+    /**
+     * @param width    the width of the map
+     * @param height   the height of the map
+     * @param walls    whether there is a wall on each tile, by index
+     * @param symmetry the symmetry of the map, which mirrors chirality 1 cats
+     */
+    public CatNavigation(int width, int height, boolean[] walls, MapSymmetry symmetry) {
+        this.width = width;
+        this.height = height;
+        this.moveX = new int[2][SEARCH_ORDER.length];
+        this.moveY = new int[2][SEARCH_ORDER.length];
+        this.moveBack = new byte[2][SEARCH_ORDER.length];
+        this.fits = new boolean[2][width * height];
+
+        for (int chirality = 0; chirality < 2; chirality++) {
+            for (int i = 0; i < SEARCH_ORDER.length; i++) {
+                Direction move = orient(SEARCH_ORDER[i], chirality, symmetry);
+                moveX[chirality][i] = move.dx;
+                moveY[chirality][i] = move.dy;
+                moveBack[chirality][i] = encode(move.opposite());
+            }
+
+            for (int y = 0; y < height; y++) {
+                for (int x = 0; x < width; x++) {
+                    boolean catFits = true;
+                    for (Direction tile : CAT_TILES) {
+                        Direction d = orient(tile, chirality, symmetry);
+                        int tx = x + d.dx;
+                        int ty = y + d.dy;
+                        if (!onTheMap(tx, ty) || walls[tx + ty * width]) {
+                            catFits = false;
+                            break;
+                        }
+                    }
+                    fits[chirality][x + y * width] = catFits;
+                }
+            }
+        }
+    }
+
+    /**
+     * @param from      the index of the tile the cat's corner is on
+     * @param to        the index of the tile the cat is heading for
+     * @param chirality the cat's chirality
+     * @return the direction to move in, CENTER if the cat is there already,
+     *         or null if it can't get there
+     */
+    public Direction getDirection(int from, int to, int chirality) {
+        chirality = chirality == 0 ? 0 : 1;
+        int key = to * 2 + chirality;
+        byte[] field;
+        synchronized (fields) {
+            field = fields.get(key);
+            if (field == null) {
+                field = search(to, chirality);
+                fields.put(key, field);
+            }
+        }
+        byte direction = field[from];
+        return direction == 0 ? null : DIRECTIONS[direction - 1];
+    }
+
+    /**
+     * Searches out from a target to every tile a cat can reach it from.
+     */
+    private byte[] search(int target, int chirality) {
+        byte[] field = new byte[width * height];
+        boolean[] catFits = fits[chirality];
+        int[] dx = moveX[chirality];
+        int[] dy = moveY[chirality];
+        byte[] back = moveBack[chirality];
+
+        // Every tile is queued at most once, when it's reached
+        int[] queue = new int[width * height];
+        int head = 0;
+        int tail = 0;
+        field[target] = encode(Direction.CENTER);
+        queue[tail++] = target;
+
+        while (head < tail) {
+            int next = queue[head++];
+            int x = next % width;
+            int y = next / width;
+            for (int i = 0; i < dx.length; i++) {
+                int nx = x + dx[i];
+                int ny = y + dy[i];
+                if (!onTheMap(nx, ny)) {
+                    continue;
+                }
+                int neighbor = nx + ny * width;
+                if (field[neighbor] != 0 || !catFits[neighbor]) {
+                    continue;
+                }
+                field[neighbor] = back[i];
+                queue[tail++] = neighbor;
+            }
+        }
+        return field;
+    }
+
+    private boolean onTheMap(int x, int y) {
+        return x >= 0 && y >= 0 && x < width && y < height;
+    }
+
+    private static Direction orient(Direction d, int chirality, MapSymmetry symmetry) {
+        return chirality == 0 ? d : GameWorld.flipDirBySymmetry(d, symmetry);
+    }
+
+    private static byte encode(Direction d) {
+        return (byte) (d.ordinal() + 1);
+    }
+
+    /**
+     * What a navigation depends on: a map's size, walls and symmetry.
+     */
+    private static final class MapKey {
+        final int width;
+        final int height;
+        final boolean[] walls;
+        final MapSymmetry symmetry;
+        final int hash;
+
+        MapKey(int width, int height, boolean[] walls, MapSymmetry symmetry) {
+            this.width = width;
+            this.height = height;
+            this.walls = walls;
+            this.symmetry = symmetry;
+            this.hash = Objects.hash(width, height, Arrays.hashCode(walls), symmetry);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof MapKey)) {
+                return false;
+            }
+            MapKey other = (MapKey) o;
+            return width == other.width && height == other.height && symmetry == other.symmetry
+                    && Arrays.equals(walls, other.walls);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
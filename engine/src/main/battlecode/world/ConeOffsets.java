@@ -0,0 +1,227 @@
+package battlecode.world;
+
+import battlecode.common.Direction;
+import battlecode.common.MapLocation;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The tiles within a distance squared and vision cone of a center tile, as
+ * offsets from it.
+ *
+ * Whether MapLocation.isWithinDistanceSquared holds for a tile only depends
+ * on the tile's offset from the center (its arithmetic is exact for
+ * integer coordinates this small), so each shape is worked out once, with
+ * that method, and shared by every query and every match that asks for it.
+ * Queries then walk a table instead of doing trigonometry.
+ *
+ * Tables are only kept for distances up to MAX_RADIUS_SQUARED; of() returns
+ * null for larger ones (or a null facing), and callers test each tile
+ * themselves.
+ */
+public final class ConeOffsets {
+
+    public static final int MAX_RADIUS_SQUARED = 4096;
+
+    private static final ConcurrentHashMap<Key, ConeOffsets> tables = new ConcurrentHashMap<>();
+
+    private final int radiusSquared;
+    private final Direction facing;
+    private final double angle;
+    private final boolean useBottomLeft;
+
+    /**
+     * How far the tables reach from the center in x and y; the same bound
+     * GameWorld scans within.
+     */
+    private final int radius;
+
+    /**
+     * Whether each offset in the square the tables reach is in the shape,
+     * indexed by (dx + radius) + (dy + radius) * (2 * radius + 1).
+     */
+    private final boolean[] inside;
+
+    /**
+     * The offsets in the shape, as x and y pairs, for each order
+     * GameWorld lists tiles in: indexed by (reverseX ? 1 : 0) +
+     * (reverseY ? 2 : 0), each sorted by x and then y, reversed as the
+     * index says.
+     */
+    private final int[][] orders;
+
+    /**
+     * @param radiusSquared the distance squared tiles must be within
+     * @param facing        the direction the cone faces, or CENTER for no cone
+     * @param angle         the angle of the cone in degrees
+     * @param useBottomLeft whether distances are measured from the center's
+     *                      top right corner, as for 2x2 robots
+     * @return the shape's offsets, or null if radiusSquared is too large to
+     *         keep a table for, or there is no facing
+     */
+    public static ConeOffsets of(int radiusSquared, Direction facing, double angle, boolean useBottomLeft) {
+        if (radiusSquared > MAX_RADIUS_SQUARED || facing == null) {
+            return null;
+        }
+        return tables.computeIfAbsent(new Key(radiusSquared, facing, angle, useBottomLeft),
+                k -> new ConeOffsets(radiusSquared, facing, angle, useBottomLeft));
+    }
+
+    private ConeOffsets(int radiusSquared, Direction facing, double angle, boolean useBottomLeft) {
+        this.radiusSquared = radiusSquared;
+        this.facing = facing;
+        this.angle = angle;
+        this.useBottomLeft = useBottomLeft;
+        this.radius = (int) Math.ceil(Math.sqrt(radiusSquared)) + 1;
+
+        int side = 2 * radius + 1;
+        this.inside = new boolean[side * side];
+        MapLocation center = new MapLocation(0, 0);
+        int count = 0;
+        for (int dy = -radius; dy <= radius; dy++) {
+            for (int dx = -radius; dx <= radius; dx++) {
+                if (center.isWithinDistanceSquared(new MapLocation(dx, dy), radiusSquared, facing, angle,
+                        useBottomLeft)) {
+                    inside[(dx + radius) + (dy + radius) * side] = true;
+                    count++;
+                }
+            }
+        }
+
+        this.orders = new int[4][];
+        for (int order = 0; order < 4; order++) {
+            int xStep = (order & 1) == 0 ? 1 : -1;
+            int yStep = (order & 2) == 0 ? 1 : -1;
+            int[] offsets = new int[count * 2];
+            int n = 0;
+            for (int i = 0; i < side; i++) {
+                int dx = xStep * (i - radius);
+                for (int j = 0; j < side; j++) {
+                    int dy = yStep * (j - radius);
+                    if (inside[(dx + radius) + (dy + radius) * side]) {
+                        offsets[n++] = dx;
+                        offsets[n++] = dy;
+                    }
+                }
+            }
+            orders[order] = offsets;
+        }
+    }
+
+    /**
+     * @return whether center.isWithinDistanceSquared(new MapLocation(x, y),
+     *         ...) holds for this shape
+     */
+    public boolean contains(MapLocation center, int x, int y) {
+        long dx = (long) x - center.x;
+        long dy = (long) y - center.y;
+        if (dx < -radius || dx > radius || dy < -radius || dy > radius) {
+            // Out of the table, but don't second-guess the real thing
+            return center.isWithinDistanceSquared(new MapLocation(x, y), radiusSquared, facing, angle,
+                    useBottomLeft);
+        }
+        return inside[(int) (dx + radius) + (int) (dy + radius) * (2 * radius + 1)];
+    }
+
+    /**
+     * Lists the tiles of the shape around a center that are on a map.
+     *
+     * @param center   the center of the shape
+     * @param origin   the origin of the map
+     * @param width    the width of the map
+     * @param height   the height of the map
+     * @param reverseX whether to list tiles by decreasing x
+     * @param reverseY whether to list tiles by decreasing y
+     * @return the tiles, by x and then y
+     */
+    public MapLocation[] locationsAround(MapLocation center, MapLocation origin, int width, int height,
+                                         boolean reverseX, boolean reverseY) {
+        return locationsAround(center, origin, width, height, reverseX, reverseY, null, null);
+    }
+
+    /**
+     * Lists the tiles of the shape around a center that are on a map and in
+     * another shape around another center, such as the tiles a robot can
+     * sense. Only the tiles listed are made into MapLocations.
+     *
+     * @param center       the center of the shape
+     * @param origin       the origin of the map
+     * @param width        the width of the map
+     * @param height       the height of the map
+     * @param reverseX     whether to list tiles by decreasing x
+     * @param reverseY     whether to list tiles by decreasing y
+     * @param within       the other shape, or null to list every tile on the map
+     * @param withinCenter the center of the other shape
+     * @return the tiles, by x and then y
+     */
+    public MapLocation[] locationsAround(MapLocation center, MapLocation origin, int width, int height,
+                                         boolean reverseX, boolean reverseY,
+                                         ConeOffsets within, MapLocation withinCenter) {
+        int[] offsets = orders[(reverseX ? 1 : 0) + (reverseY ? 2 : 0)];
+
+        // Count the tiles first, so the array returned is the only one made
+        int n = 0;
+        for (int i = 0; i < offsets.length; i += 2) {
+            if (listed(center.x + offsets[i], center.y + offsets[i + 1], origin, width, height, within,
+                    withinCenter)) {
+                n++;
+            }
+        }
+
+        MapLocation[] locations = new MapLocation[n];
+        n = 0;
+        for (int i = 0; i < offsets.length; i += 2) {
+            int x = center.x + offsets[i];
+            int y = center.y + offsets[i + 1];
+            if (listed(x, y, origin, width, height, within, withinCenter)) {
+                locations[n++] = new MapLocation(x, y);
+            }
+        }
+        return locations;
+    }
+
+    private static boolean listed(int x, int y, MapLocation origin, int width, int height,
+                                  ConeOffsets within, MapLocation withinCenter) {
+        return x >= origin.x && y >= origin.y && x < origin.x + width && y < origin.y + height
+                && (within == null || within.contains(withinCenter, x, y));
+    }
+
+    /**
+     * @return whether this is the shape of(radiusSquared, facing, angle,
+     *         useBottomLeft) gives
+     */
+    public boolean is(int radiusSquared, Direction facing, double angle, boolean useBottomLeft) {
+        return this.radiusSquared == radiusSquared && this.facing == facing
+                && Double.compare(this.angle, angle) == 0 && this.useBottomLeft == useBottomLeft;
+    }
+
+    private static final class Key {
+        final int radiusSquared;
+        final Direction facing;
+        final double angle;
+        final boolean useBottomLeft;
+
+        Key(int radiusSquared, Direction facing, double angle, boolean useBottomLeft) {
+            this.radiusSquared = radiusSquared;
+            this.facing = facing;
+            this.angle = angle;
+            this.useBottomLeft = useBottomLeft;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            return radiusSquared == other.radiusSquared && facing == other.facing
+                    && Double.compare(angle, other.angle) == 0 && useBottomLeft == other.useBottomLeft;
+        }
+
+        @Override
+        public int hashCode() {
+            return ((radiusSquared * 31 + facing.ordinal()) * 31 + Double.hashCode(angle)) * 2
+                    + (useBottomLeft ? 1 : 0);
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package battlecode.world;
+
+import battlecode.server.Config;
+
+import java.util.Random;
+
+/**
+ * Engine state that belongs to a single match: the configuration the match
+ * was started with, the seed of the match and the random streams the engine
+ * itself draws from.
+ *
+ * Every GameWorld owns its own context, so several matches can run in the
+ * same JVM without sharing random state or depending on the global config.
+ * Everything random in a match is derived from its seed, so a match played
+ * twice with the same seed, maps and players plays out the same way.
+ */
+public class EngineContext {
+
+    /**
+     * Mixed into the seed of the match to seed the stream that drives cat
+     * movement, so that it differs from the world's own stream.
+     */
+    public static final long CAT_RANDOM_SALT = 1092;
+
+    /**
+     * The configuration of the match.
+     */
+    private final Config config;
+
+    /**
+     * The seed of the match.
+     */
+    private final int seed;
+
+    /**
+     * The stream used by cats to pick random directions.
+     */
+    private final Random catRandom;
+
+    /**
+     * Creates a context for a new match.
+     *
+     * @param config the configuration of the match
+     * @param seed   the seed of the match
+     */
+    public EngineContext(Config config, int seed) {
+        this.config = config;
+        this.seed = seed;
+        this.catRandom = new Random(seed ^ CAT_RANDOM_SALT);
+    }
+
+    /**
+     * @param mapSeed the seed of the map being played
+     * @return a context using the global configuration, for callers
+     *         (mostly tests) that don't set up their own
+     */
+    public static EngineContext fromGlobalConfig(int mapSeed) {
+        Config config = Config.getGlobalConfig();
+        return new EngineContext(config, seedFor(config, mapSeed));
+    }
+
+    /**
+     * @param config  the configuration of the match
+     * @param mapSeed the seed of the map being played
+     * @return the seed set by bc.game.seed, or the map's own seed if that
+     *         isn't set
+     */
+    public static int seedFor(Config config, int mapSeed) {
+        String seed = config.get("bc.game.seed");
+        if (seed == null || seed.isEmpty()) {
+            return mapSeed;
+        }
+        return Integer.parseInt(seed);
+    }
+
+    public Config getConfig() {
+        return config;
+    }
+
+    public int getSeed() {
+        return seed;
+    }
+
+    public Random getCatRandom() {
+        return catRandom;
+    }
+}
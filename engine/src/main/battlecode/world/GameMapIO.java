@@ -52,26 +52,40 @@ public final class GameMapIO {
      * @throws IOException if the map fails to load or can't be found.
      */
     public static LiveMap loadMap(String mapName, File mapDir, boolean teamsReversed) throws IOException {
-        final LiveMap result;
+        final LiveMap result = Serial.deserialize(loadMapBytes(mapName, mapDir), teamsReversed);
 
+        if (!result.getMapName().equals(mapName)) {
+            throw new IOException("Invalid map: name (" + result.getMapName()
+                    + ") does not match filename (" + mapName + MAP_EXTENSION + ")");
+        }
+
+        return result;
+    }
+
+    /**
+     * Returns the raw contents of a map file, looked up the same way as
+     * {@link #loadMap(String, File, boolean)}.
+     *
+     * @param mapName name of map.
+     * @param mapDir  directory to load the extra map from; may be null.
+     * @return the bytes of the map file
+     * @throws IOException if the map can't be found or read.
+     */
+    public static byte[] loadMapBytes(String mapName, File mapDir) throws IOException {
         final File mapFile = new File(mapDir, mapName + MAP_EXTENSION);
+        final InputStream stream;
         if (mapFile.exists()) {
-            result = loadMap(new FileInputStream(mapFile), teamsReversed);
+            stream = new FileInputStream(mapFile);
         } else {
-            final InputStream backupStream = BACKUP_LOADER
-                    .getResourceAsStream(DEFAULT_MAP_PACKAGE + mapName + MAP_EXTENSION);
-            if (backupStream == null) {
+            stream = BACKUP_LOADER.getResourceAsStream(DEFAULT_MAP_PACKAGE + mapName + MAP_EXTENSION);
+            if (stream == null) {
                 throw new IOException("Can't load map: " + mapName + " from dir " + mapDir + " or default maps.");
             }
-            result = loadMap(backupStream, teamsReversed);
         }
 
-        if (!result.getMapName().equals(mapName)) {
-            throw new IOException("Invalid map: name (" + result.getMapName()
-                    + ") does not match filename (" + mapName + MAP_EXTENSION + ")");
+        try (InputStream in = stream) {
+            return IOUtils.toByteArray(in);
         }
-
-        return result;
     }
 
     public static LiveMap loadMapAsResource(final ClassLoader loader,
@@ -10,10 +10,14 @@ public class GameStats {
 
     private Team winner;
     private DominationFactor dominationFactor;
+    private final long[] totalBytecodes;
+    private final long[] playerTimes;
 
     public GameStats() {
         this.winner = null;
         this.dominationFactor = null;
+        this.totalBytecodes = new long[2];
+        this.playerTimes = new long[2];
     }
 
     public void setWinner(Team t) {
@@ -32,4 +36,38 @@ public class GameStats {
         return dominationFactor;
     }
 
+    /**
+     * Record bytecodes used by a robot during its turn.
+     *
+     * @param t the team of the robot; neutral robots aren't counted
+     * @param bytecodes the number of bytecodes used
+     */
+    public void addBytecodesUsed(Team t, int bytecodes) {
+        if (t == Team.A || t == Team.B) {
+            totalBytecodes[t.ordinal()] += bytecodes;
+        }
+    }
+
+    /**
+     * @return the bytecodes used by all of a team's robots over the match
+     */
+    public long getTotalBytecodes(Team t) {
+        return totalBytecodes[t.ordinal()];
+    }
+
+    /**
+     * @param t the team
+     * @param nanos the wall time the team's players spent executing, in ns
+     */
+    public void setPlayerTime(Team t, long nanos) {
+        playerTimes[t.ordinal()] = nanos;
+    }
+
+    /**
+     * @return the wall time the team's players spent executing, in ns
+     */
+    public long getPlayerTime(Team t) {
+        return playerTimes[t.ordinal()];
+    }
+
 }
@@ -50,6 +50,7 @@ public class GameWorld {
     private Map<Team, ProfilerCollection> profilerCollections;
 
     private final RobotControlProvider controlProvider;
+    private final EngineContext context;
     Random rand;
     private final GameMaker.MatchMaker matchMaker;
 
@@ -59,9 +60,18 @@ public class GameWorld {
     private ArrayList<CheeseMine> cheeseMines;
     private CheeseMine[] cheeseMineLocs;
 
-    // bfs map
-    private Direction[][] bfs_map_0;
-    private Direction[][] bfs_map_1;
+    // where the robots in robots are, for range queries
+    private final RobotIndex robotIndex;
+
+    // the tiles a range query has found so far, with room for every tile
+    private final int[] robotTiles;
+
+    // robot IDs the sensing methods have seen; only one robot runs at a
+    // time, so they can all share it
+    private final RobotIDSet sensedRobotIDs = new RobotIDSet();
+
+    // the directions cats move in toward their targets
+    private final CatNavigation catNavigation;
 
     private int numCats;
 
@@ -100,7 +110,10 @@ public class GameWorld {
 
 
     public Direction flipDirBySymmetry(Direction d){
-        MapSymmetry symmetry = this.gameMap.getSymmetry();
+        return flipDirBySymmetry(d, this.gameMap.getSymmetry());
+    }
+
+    public static Direction flipDirBySymmetry(Direction d, MapSymmetry symmetry){
         int dx = d.getDeltaX();
         int dy = d.getDeltaY();
         switch (symmetry) {
@@ -133,8 +146,13 @@ public class GameWorld {
         return new MapLocation(symmetricX(p.x), symmetricY(p.y));
     }
 
-    @SuppressWarnings("unchecked")
     public GameWorld(LiveMap gm, RobotControlProvider cp, GameMaker.MatchMaker matchMaker) {
+        this(gm, cp, matchMaker, EngineContext.fromGlobalConfig(gm.getSeed()));
+    }
+
+    @SuppressWarnings("unchecked")
+    public GameWorld(LiveMap gm, RobotControlProvider cp, GameMaker.MatchMaker matchMaker, EngineContext context) {
+        this.context = context;
         int width = gm.getWidth();
         int height = gm.getHeight();
         int numSquares = width * height;
@@ -145,9 +163,11 @@ public class GameWorld {
         this.robots = new InternalRobot[width][height]; // if represented in cartesian, should be height-width, but this
                                                         // should allow us to index x-y
         this.flyingRobots = new InternalRobot[width][height];
+        this.robotIndex = new RobotIndex(width, height);
+        this.robotTiles = new int[numSquares];
         this.hasRunCheeseMinesThisRound = false;
         this.currentRound = 0;
-        this.idGenerator = new IDGenerator(new Random().nextInt());
+        this.idGenerator = new IDGenerator(context.getSeed());
         this.gameStats = new GameStats();
         this.gameMap = gm;
         this.objectInfo = new ObjectInfo(gm);
@@ -162,7 +182,7 @@ public class GameWorld {
         this.profilerCollections = new HashMap<>();
 
         this.controlProvider = cp;
-        this.rand = new Random(this.gameMap.getSeed());
+        this.rand = new Random(context.getSeed());
         this.matchMaker = matchMaker;
 
         this.controlProvider.matchStarted(this);
@@ -205,95 +225,13 @@ public class GameWorld {
                     robotInfo.team);
         }
 
-        // cat bfs map
-        this.bfs_map_0 = new Direction[width*height][width*height];
-        this.bfs_map_1 = new Direction[width*height][width*height];
-        
-        for (int target_x=0; target_x < width; target_x++){
-            for (int target_y=0; target_y < height; target_y++){
-                MapLocation source = new MapLocation(target_x, target_y);
-                bfsFromTarget(source, 0);
-                bfsFromTarget(source, 1);
-            }
-        }
-
-
-    }
-
-    public void bfsFromTarget(MapLocation target, int chirality){
-        // bfs form target to all possible sources, set source direction to target
-
-        Direction[][] bfs_map;
-        
-        if (chirality == 0)
-            bfs_map = this.bfs_map_0;
-        else
-            bfs_map = this.bfs_map_1;
-
-        Queue<MapLocation> queue = new LinkedList<MapLocation>();
-        queue.add(target);
-
-        bfs_map[locationToIndex(target)][locationToIndex(target)] = Direction.CENTER;
-
-        while(!queue.isEmpty()){
-            MapLocation nextLoc = queue.poll();
-            
-            // check neighbors
-            for (Direction d : new Direction[]{Direction.NORTH, Direction.EAST, Direction.SOUTH, Direction.WEST, Direction.NORTHEAST, Direction.SOUTHEAST, Direction.SOUTHWEST, Direction.NORTHWEST}){
-                if (d == Direction.CENTER)
-                    continue;
-
-                Direction useDir;
-                if (chirality == 1){
-                    useDir = flipDirBySymmetry(d);
-                }
-                else{
-                    useDir = d;
-                }
-                
-                MapLocation neighbor = nextLoc.add(useDir);
-
-                if (this.gameMap.onTheMap(neighbor) && bfs_map[locationToIndex(neighbor)][locationToIndex(target)] != null){
-                    // visited already
-                    continue;
-                }
-
-                // check this path works for all cat locations
-                boolean validPath = true;
-                
-                Direction[] dirsFromCenterLoc;
-
-                if (chirality == 0) {
-                    dirsFromCenterLoc = new Direction[]{Direction.CENTER, Direction.NORTH, Direction.NORTHEAST, Direction.EAST};
-                } else {
-                    dirsFromCenterLoc = new Direction[]{flipDirBySymmetry(Direction.CENTER), flipDirBySymmetry(Direction.NORTH), flipDirBySymmetry(Direction.NORTHEAST), flipDirBySymmetry(Direction.EAST)};
-                }
-
-                for (Direction dirFromCenter : dirsFromCenterLoc){
-                    MapLocation neighborCorner = neighbor.add(dirFromCenter);
-                    boolean onTheMap = this.gameMap.onTheMap(neighborCorner);
-
-                    if (!onTheMap || this.getWall(neighborCorner)){
-                        // location not on map or has walls
-                        validPath = false;
-                        break;
-                    }
-                }
-
-                if (validPath) {
-                    Direction reverseDirection = useDir.opposite();
-                    bfs_map[locationToIndex(neighbor)][locationToIndex(target)] = reverseDirection;
-                    queue.add(neighbor);
-                }
-            }   
-        }
+        // cat navigation; fields are computed as cats need them, and shared
+        // with other matches on the same map
+        this.catNavigation = CatNavigation.of(width, height, walls, gm.getSymmetry());
     }
 
     public Direction getBfsDir(MapLocation from, MapLocation to, int chirality){
-        if (chirality==0)
-            return bfs_map_0[locationToIndex(from)][locationToIndex(to)];
-        else
-            return bfs_map_1[locationToIndex(from)][locationToIndex(to)];
+        return catNavigation.getDirection(locationToIndex(from), locationToIndex(to), chirality);
     }
 
     /**
@@ -348,6 +286,7 @@ public class GameWorld {
         robot.processBeginningOfTurn();
         this.controlProvider.runRobot(robot);
         robot.setBytecodesUsed(this.controlProvider.getBytecodesUsed(robot));
+        this.gameStats.addBytecodesUsed(robot.getTeam(), robot.getBytecodesUsed());
         robot.processEndOfTurn();
 
         // If the robot terminates but the death signal has not yet
@@ -385,10 +324,18 @@ public class GameWorld {
         return this.objectInfo;
     }
 
+    public RobotIDSet getSensedRobotIDs() {
+        return this.sensedRobotIDs;
+    }
+
     public GameMaker.MatchMaker getMatchMaker() {
         return this.matchMaker;
     }
 
+    public EngineContext getContext() {
+        return this.context;
+    }
+
     public Team getWinner() {
         return this.gameStats.getWinner();
     }
@@ -669,6 +616,10 @@ public class GameWorld {
 
     public void addRobot(MapLocation loc, InternalRobot robot) {
         this.robots[loc.x - this.gameMap.getOrigin().x][loc.y - this.gameMap.getOrigin().y] = robot;
+        if (robot == null)
+            this.robotIndex.remove(locationToIndex(loc));
+        else
+            this.robotIndex.add(locationToIndex(loc), robot.getTeam());
     }
 
     public void addFlyingRobot(MapLocation loc, InternalRobot robot) {
@@ -677,6 +628,7 @@ public class GameWorld {
 
     public void removeRobot(MapLocation loc) {
         this.robots[loc.x - this.gameMap.getOrigin().x][loc.y - this.gameMap.getOrigin().y] = null;
+        this.robotIndex.remove(locationToIndex(loc));
     }
 
     public void removeFlyingRobot(MapLocation loc) {
@@ -688,13 +640,7 @@ public class GameWorld {
     }
 
     public InternalRobot[] getAllRobotsWithinRadiusSquared(MapLocation center, int radiusSquared, Team team, int chirality) {
-        ArrayList<InternalRobot> returnRobots = new ArrayList<InternalRobot>();
-        for (MapLocation newLocation : getAllLocationsWithinRadiusSquared(center, radiusSquared, chirality))
-            if (getRobot(newLocation) != null) {
-                if (team == null || getRobot(newLocation).getTeam() == team)
-                    returnRobots.add(getRobot(newLocation));
-            }
-        return returnRobots.toArray(new InternalRobot[returnRobots.size()]);
+        return getAllRobotsWithinConeRadiusSquared(center, Direction.CENTER, 360, radiusSquared, team, chirality);
     }
 
     public InternalRobot[] getAllRobotsWithinConeRadiusSquared(MapLocation center, Direction lookDirection,
@@ -702,26 +648,110 @@ public class GameWorld {
         return getAllRobotsWithinConeRadiusSquared(center, lookDirection, totalAngle, radiusSquared, null, chirality);
     }
 
+    /**
+     * Finds the robots on the tiles getAllLocationsWithinConeRadiusSquared
+     * would give, in the same order (so a robot on several tiles is in the
+     * result several times), but only looks at tiles with robots on them.
+     */
     public InternalRobot[] getAllRobotsWithinConeRadiusSquared(MapLocation center, Direction lookDirection,
             double totalAngle, int radiusSquared, Team team, int chirality) {
-        ArrayList<InternalRobot> returnRobots = new ArrayList<InternalRobot>();
-        for (MapLocation newLocation : getAllLocationsWithinConeRadiusSquared(center, lookDirection, totalAngle,
-                radiusSquared, chirality))
-            if (getRobot(newLocation) != null) {
-                if (team == null || getRobot(newLocation).getTeam() == team)
-                    returnRobots.add(getRobot(newLocation));
-            }
-        return returnRobots.toArray(new InternalRobot[returnRobots.size()]);
+        int n = findRobotTiles(center, lookDirection, totalAngle, radiusSquared, team, chirality);
+        InternalRobot[] returnRobots = new InternalRobot[n];
+        getRobotsOnTiles(n, chirality, returnRobots);
+        return returnRobots;
     }
 
-    public InternalRobot[] getAllRobots(Team team, int chirality) {
-        ArrayList<InternalRobot> returnRobots = new ArrayList<InternalRobot>();
-        for (MapLocation newLocation : getAllLocations(chirality)) {
-            if (getRobot(newLocation) != null && (team == null || getRobot(newLocation).getTeam() == team)) {
-                returnRobots.add(getRobot(newLocation));
+    /**
+     * Like getAllRobotsWithinRadiusSquared, but puts the robots at the start
+     * of an array the caller keeps rather than in a new one.
+     *
+     * @param robots where to put the robots, at least
+     *               getRobotBufferSize(radiusSquared) long
+     * @return how many robots there are
+     */
+    public int getAllRobotsWithinRadiusSquared(MapLocation center, int radiusSquared, Team team, int chirality,
+            InternalRobot[] robots) {
+        int n = findRobotTiles(center, Direction.CENTER, 360, radiusSquared, team, chirality);
+        getRobotsOnTiles(n, chirality, robots);
+        return n;
+    }
+
+    /**
+     * @return how long an array has to be for getAllRobotsWithinRadiusSquared
+     *         to have room for the robots within a distance squared
+     */
+    public int getRobotBufferSize(int radiusSquared) {
+        long side = 2L * ((long) Math.ceil(Math.sqrt(radiusSquared)) + 1) + 1;
+        return (int) Math.min(side * side, this.robotTiles.length);
+    }
+
+    /**
+     * Finds the tiles with robots on them in a cone, and leaves them in
+     * robotTiles, sorted by where getAllLocationsWithinConeRadiusSquared puts
+     * each tile: by x and then y, either of which chirality 1 may reverse.
+     *
+     * @return how many tiles there are
+     */
+    private int findRobotTiles(MapLocation center, Direction lookDirection, double totalAngle, int radiusSquared,
+            Team team, int chirality) {
+        MapLocation origin = this.gameMap.getOrigin();
+        int width = this.gameMap.getWidth();
+        int height = this.gameMap.getHeight();
+        int ceiledRadius = (int) Math.ceil(Math.sqrt(radiusSquared)) + 1; // add +1 just to be safe
+        int[] tiles = this.robotTiles;
+        int found = this.robotIndex.tilesWithin(
+                center.x - ceiledRadius - origin.x, center.y - ceiledRadius - origin.y,
+                center.x + ceiledRadius - origin.x, center.y + ceiledRadius - origin.y, team, tiles);
+
+        boolean reverseX = reversesX(chirality), reverseY = reversesY(chirality);
+        ConeOffsets offsets = ConeOffsets.of(radiusSquared, lookDirection, totalAngle, false);
+        int n = 0;
+        for (int i = 0; i < found; i++) {
+            int x = tiles[i] % width;
+            int y = tiles[i] / width;
+            if (offsets != null ? offsets.contains(center, x + origin.x, y + origin.y)
+                    : center.isWithinDistanceSquared(new MapLocation(x + origin.x, y + origin.y), radiusSquared,
+                    lookDirection, totalAngle)) {
+                tiles[n++] = (reverseX ? width - 1 - x : x) * height + (reverseY ? height - 1 - y : y);
             }
         }
-        return returnRobots.toArray(new InternalRobot[returnRobots.size()]);
+        Arrays.sort(tiles, 0, n);
+        return n;
+    }
+
+    /**
+     * Looks up the robots on the first n tiles findRobotTiles found.
+     */
+    private void getRobotsOnTiles(int n, int chirality, InternalRobot[] robots) {
+        int width = this.gameMap.getWidth();
+        int height = this.gameMap.getHeight();
+        boolean reverseX = reversesX(chirality), reverseY = reversesY(chirality);
+        for (int i = 0; i < n; i++) {
+            int x = this.robotTiles[i] / height;
+            int y = this.robotTiles[i] % height;
+            robots[i] = this.robots[reverseX ? width - 1 - x : x][reverseY ? height - 1 - y : y];
+        }
+    }
+
+    /**
+     * @return whether tiles are listed by decreasing x for a chirality, as
+     *         the map's symmetry mirrors chirality 1
+     */
+    private boolean reversesX(int chirality) {
+        MapSymmetry symmetry = this.gameMap.getSymmetry();
+        return chirality == 1 && (symmetry == MapSymmetry.VERTICAL || symmetry == MapSymmetry.ROTATIONAL);
+    }
+
+    /**
+     * @return whether tiles are listed by decreasing y for a chirality
+     */
+    private boolean reversesY(int chirality) {
+        MapSymmetry symmetry = this.gameMap.getSymmetry();
+        return chirality == 1 && (symmetry == MapSymmetry.HORIZONTAL || symmetry == MapSymmetry.ROTATIONAL);
+    }
+
+    public InternalRobot[] getAllRobots(Team team, int chirality) {
+        return getAllRobotsWithinRadiusSquared(new MapLocation(0, 0), Integer.MAX_VALUE, team, chirality);
     }
 
     public MapLocation[] getAllLocationsWithinRadiusSquared(MapLocation center, int radiusSquared, int chirality) {
@@ -732,6 +762,30 @@ public class GameWorld {
                 center, Direction.CENTER, 360, radiusSquared, chirality);
     }
 
+    /**
+     * Like getAllLocationsWithinRadiusSquared, but only gives the locations
+     * a robot can sense, and only makes MapLocations for those.
+     */
+    public MapLocation[] getAllSensableLocationsWithinRadiusSquared(MapLocation center, int radiusSquared,
+            int chirality, InternalRobot sensor) {
+        ConeOffsets offsets = ConeOffsets.of(radiusSquared, Direction.CENTER, 360, false);
+        ConeOffsets vision = sensor.getVisionCone();
+        if (offsets != null && vision != null) {
+            return offsets.locationsAround(center, this.gameMap.getOrigin(), this.gameMap.getWidth(),
+                    this.gameMap.getHeight(), reversesX(chirality), reversesY(chirality), vision,
+                    sensor.getLocation());
+        }
+
+        MapLocation[] locations = getAllLocationsWithinRadiusSquared(center, radiusSquared, chirality);
+        int n = 0;
+        for (MapLocation loc : locations) {
+            if (sensor.canSenseLocation(loc)) {
+                locations[n++] = loc;
+            }
+        }
+        return n == locations.length ? locations : Arrays.copyOf(locations, n);
+    }
+
     public MapLocation[] getAllLocationsWithinConeRadiusSquared(MapLocation center, Direction lookDirection,
             double totalAngle, int radiusSquared, int chirality) {
         return getAllLocationsWithinConeRadiusSquaredWithoutMap(
@@ -748,6 +802,16 @@ public class GameWorld {
             MapLocation center,
             Direction lookDirection,
             double angle, int radiusSquared, int chirality) {
+        // Tiles are listed by x and then y, either of which chirality 1
+        // reverses as the map's symmetry does
+        boolean reverseX = reversesX(chirality), reverseY = reversesY(chirality);
+
+        ConeOffsets offsets = ConeOffsets.of(radiusSquared, lookDirection, angle, false);
+        if (offsets != null) {
+            return offsets.locationsAround(center, origin, width, height, reverseX, reverseY);
+        }
+
+        // Too far to have a table; test every tile near enough
         ArrayList<MapLocation> returnLocations = new ArrayList<MapLocation>();
         int ceiledRadius = (int) Math.ceil(Math.sqrt(radiusSquared)) + 1; // add +1 just to be safe
         int minX = Math.max(center.x - ceiledRadius, origin.x);
@@ -755,33 +819,10 @@ public class GameWorld {
         int maxX = Math.min(center.x + ceiledRadius, origin.x + width - 1);
         int maxY = Math.min(center.y + ceiledRadius, origin.y + height - 1);
 
-        ArrayList<Integer> x_list = new ArrayList<>();
-        ArrayList<Integer> y_list = new ArrayList<>();
-        for (int x = minX; x <= maxX; x++) {
-            x_list.add(x);
-        }
-        for (int y = minY; y <= maxY; y++) {
-            y_list.add(y);
-        }
-
-        if (chirality == 1){
-            MapSymmetry symmetry = this.getGameMap().getSymmetry();
-            switch (symmetry){
-                case HORIZONTAL:
-                    Collections.reverse(y_list);
-                    break;
-                case VERTICAL:
-                    Collections.reverse(x_list);
-                    break;
-                case ROTATIONAL:
-                    Collections.reverse(x_list);
-                    Collections.reverse(y_list);
-                    break;
-            }
-        }
-
-        for (int x : x_list) {
-            for (int y : y_list) {
+        for (int i = 0; i <= maxX - minX; i++) {
+            int x = reverseX ? maxX - i : minX + i;
+            for (int j = 0; j <= maxY - minY; j++) {
+                int y = reverseY ? maxY - j : minY + j;
                 MapLocation newLocation = new MapLocation(x, y);
 
                 if (center.isWithinDistanceSquared(newLocation, radiusSquared, lookDirection, angle)) {
@@ -800,13 +841,6 @@ public class GameWorld {
         return this.hasTraveledIDs.contains(id);
     }
 
-    /**
-     * @return all of the locations on the grid
-     */
-    private MapLocation[] getAllLocations(int chirality) {
-        return getAllLocationsWithinRadiusSquared(new MapLocation(0, 0), Integer.MAX_VALUE, chirality);
-    }
-
     // *********************************
     // ****** GAMEPLAY *****************
     // *********************************
@@ -952,10 +986,11 @@ public class GameWorld {
     }
 
     /**
-     * Sets a winner arbitrarily. Hopefully this is actually random.
+     * Sets a winner arbitrarily, using the match's random stream so that
+     * replaying a match with the same seed picks the same winner.
      */
     public void setWinnerArbitrary() {
-        setWinner(Math.random() < 0.5 ? Team.A : Team.B, DominationFactor.WON_BY_DUBIOUS_REASONS);
+        setWinner(rand.nextBoolean() ? Team.A : Team.B, DominationFactor.WON_BY_DUBIOUS_REASONS);
     }
 
     public boolean timeLimitReached() {
@@ -56,7 +56,8 @@ public class InternalRobot implements Comparable<InternalRobot> {
     // the number of messages this robot/tower has sent this turn
     private int sentMessagesCount;
 
-    public static Random rand = new Random(1092);
+    // the match's cat movement stream, shared by every cat in the match
+    private final Random rand;
 
     private int chirality;
     private int sleepTimeRemaining;
@@ -66,6 +67,20 @@ public class InternalRobot implements Comparable<InternalRobot> {
      */
     private RobotInfo cachedRobotInfo;
 
+    /**
+     * The shape of the tiles this robot could last sense, which is kept
+     * until its direction or type change.
+     */
+    private ConeOffsets visionCone;
+
+    /**
+     * The tiles getAllPartLocations last gave, and where the robot was and
+     * what type it was then.
+     */
+    private MapLocation[] cachedPartLocations;
+    private MapLocation cachedPartsLocation;
+    private UnitType cachedPartsType;
+
     private String indicatorString;
 
     private int currentWaypoint;
@@ -88,6 +103,7 @@ public class InternalRobot implements Comparable<InternalRobot> {
     public InternalRobot(GameWorld gw, int id, Team team, UnitType type, MapLocation loc, Direction dir,
             int chirality) {
         this.gameWorld = gw;
+        this.rand = gw.getContext().getCatRandom();
 
         this.ID = id;
 
@@ -236,6 +252,21 @@ public class InternalRobot implements Comparable<InternalRobot> {
             return this.getAllRatLocations();
     }
 
+    /**
+     * Returns the same tiles as getAllPartLocations, but only works them out
+     * again once the robot has moved or changed type. The array is shared,
+     * so it mustn't be modified.
+     */
+    public MapLocation[] getCachedPartLocations() {
+        if (this.cachedPartLocations == null || this.cachedPartsType != this.type
+                || !this.location.equals(this.cachedPartsLocation)) {
+            this.cachedPartLocations = getAllPartLocations();
+            this.cachedPartsLocation = this.location;
+            this.cachedPartsType = this.type;
+        }
+        return this.cachedPartLocations;
+    }
+
     public MapLocation getDiedLocation() {
         return diedLocation;
     }
@@ -403,8 +434,26 @@ public class InternalRobot implements Comparable<InternalRobot> {
      * @param toSense the MapLocation to sense
      */
     public boolean canSenseLocation(MapLocation toSense) {
-        return this.location.isWithinDistanceSquared(toSense, getVisionRadiusSquared(), this.dir, getVisionConeAngle(),
-                this.type.usesBottomLeftLocationForDistance());
+        ConeOffsets cone = getVisionCone();
+        if (cone == null) {
+            return this.location.isWithinDistanceSquared(toSense, getVisionRadiusSquared(), this.dir,
+                    getVisionConeAngle(), this.type.usesBottomLeftLocationForDistance());
+        }
+        return cone.contains(this.location, toSense.x, toSense.y);
+    }
+
+    /**
+     * Returns the shape of the tiles around this robot it can sense, or null
+     * if there's no table for it (see ConeOffsets.of).
+     */
+    public ConeOffsets getVisionCone() {
+        int radiusSquared = getVisionRadiusSquared();
+        int angle = getVisionConeAngle();
+        boolean useBottomLeft = this.type.usesBottomLeftLocationForDistance();
+        if (this.visionCone == null || !this.visionCone.is(radiusSquared, this.dir, angle, useBottomLeft)) {
+            this.visionCone = ConeOffsets.of(radiusSquared, this.dir, angle, useBottomLeft);
+        }
+        return this.visionCone;
     }
 
     /**
@@ -6,7 +6,6 @@ import static battlecode.common.GameActionExceptionType.*;
 import battlecode.instrumenter.RobotDeathException;
 
 import java.util.*;
-import java.util.stream.Collectors;
 
 /**
  * The actual implementation of RobotController. Its methods *must* be called
@@ -30,6 +29,13 @@ public final class RobotControllerImpl implements RobotController {
      */
     private final InternalRobot robot;
 
+    /**
+     * Scratch space for the sensing methods, kept from call to call so that
+     * the only arrays they allocate are the ones they return.
+     */
+    private InternalRobot[] sensedRobots = new InternalRobot[0];
+    private RobotInfo[] sensedRobotInfos = new RobotInfo[0];
+
     /**
      * Create a new RobotControllerImpl
      * 
@@ -211,6 +217,14 @@ public final class RobotControllerImpl implements RobotController {
         return true;
     }
 
+    /**
+     * Checks what assertCanSenseLocation does, without building an exception
+     * when the location can't be sensed.
+     */
+    private boolean canSense(MapLocation loc) {
+        return this.gameWorld.getGameMap().onTheMap(loc) && this.robot.canSenseLocation(loc);
+    }
+
     private void assertCanSenseLocation(MapLocation loc) throws GameActionException {
         assertNotNull(loc);
         if (!this.gameWorld.getGameMap().onTheMap(loc))
@@ -523,12 +537,8 @@ public final class RobotControllerImpl implements RobotController {
 
     @Override
     public boolean canSenseLocation(MapLocation loc) {
-        try {
-            assertCanSenseLocation(loc);
-            return true;
-        } catch (GameActionException e) {
-            return false;
-        }
+        assertNotNull(loc);
+        return canSense(loc);
     }
 
     @Override
@@ -539,11 +549,8 @@ public final class RobotControllerImpl implements RobotController {
 
     @Override
     public boolean canSenseRobotAtLocation(MapLocation loc) {
-        try {
-            return isLocationOccupied(loc);
-        } catch (GameActionException e) {
-            return false;
-        }
+        assertNotNull(loc);
+        return canSense(loc) && this.gameWorld.getRobot(loc) != null;
     }
 
     @Override
@@ -601,21 +608,35 @@ public final class RobotControllerImpl implements RobotController {
         int actualRadiusSquared = radiusSquared == -1 ? this.robot.getVisionRadiusSquared()
                 : Math.min(radiusSquared, this.robot.getVisionRadiusSquared());
 
-        InternalRobot[] allSensedRobots = gameWorld.getAllRobotsWithinRadiusSquared(center, actualRadiusSquared, team,
-                this.robot.getChirality());
-        List<RobotInfo> validSensedRobots = new ArrayList<>();
-        HashSet<Integer> uniqueRobotIds = new HashSet<>();
-        for (InternalRobot sensedRobot : allSensedRobots) {
-            if (uniqueRobotIds.contains(sensedRobot.getID()))
+        int bufferSize = gameWorld.getRobotBufferSize(actualRadiusSquared);
+        if (this.sensedRobots.length < bufferSize)
+            this.sensedRobots = new InternalRobot[bufferSize];
+        InternalRobot[] allSensedRobots = this.sensedRobots;
+        int numSensed = gameWorld.getAllRobotsWithinRadiusSquared(center, actualRadiusSquared, team,
+                this.robot.getChirality(), allSensedRobots);
+        if (this.sensedRobotInfos.length < numSensed)
+            this.sensedRobotInfos = new RobotInfo[numSensed];
+        RobotInfo[] validSensedRobots = this.sensedRobotInfos;
+        int numValid = 0;
+
+        // A robot on several tiles is only looked at once; whether it's kept
+        // doesn't depend on which of its tiles it was found on
+        RobotIDSet uniqueRobotIds = gameWorld.getSensedRobotIDs();
+        uniqueRobotIds.clear();
+        for (int i = 0; i < numSensed; i++) {
+            InternalRobot sensedRobot = allSensedRobots[i];
+            if (!uniqueRobotIds.add(sensedRobot.getID()))
                 continue;
             // check if this robot
             if (sensedRobot.equals(this.robot))
                 continue;
             // check if can sense in vision cone (restricted radius)
             boolean canSensePartOfRobot = false;
-            for (MapLocation robotpart : sensedRobot.getAllPartLocations()) {
-                canSensePartOfRobot = canSensePartOfRobot || (canSenseLocation(robotpart)
-                        && center.isWithinDistanceSquared(robotpart, actualRadiusSquared));
+            for (MapLocation robotpart : sensedRobot.getCachedPartLocations()) {
+                if (canSense(robotpart) && center.isWithinDistanceSquared(robotpart, actualRadiusSquared)) {
+                    canSensePartOfRobot = true;
+                    break;
+                }
             }
 
             if (!canSensePartOfRobot)
@@ -624,10 +645,9 @@ public final class RobotControllerImpl implements RobotController {
             // check if right team
             if (team != null && sensedRobot.getTeam() != team)
                 continue;
-            validSensedRobots.add(sensedRobot.getRobotInfo());
-            uniqueRobotIds.add(sensedRobot.getID());
+            validSensedRobots[numValid++] = sensedRobot.getRobotInfo();
         }
-        return validSensedRobots.toArray(new RobotInfo[validSensedRobots.size()]);
+        return Arrays.copyOf(validSensedRobots, numValid);
     }
 
     @Override
@@ -670,21 +690,13 @@ public final class RobotControllerImpl implements RobotController {
         assertRadiusNonNegative(radiusSquared);
         int actualRadiusSquared = radiusSquared == -1 ? this.getType().visionConeRadiusSquared
                 : Math.min(radiusSquared, this.getType().visionConeRadiusSquared);
-        MapLocation[] allSensedLocs = gameWorld.getAllLocationsWithinRadiusSquared(center,
-                actualRadiusSquared, this.robot.getChirality()); // expand slightly
-                                                                 // to allow
-                                                                 // off-center
-                                                                 // sensing
-        List<MapInfo> validSensedMapInfo = new ArrayList<>();
-        for (MapLocation mapLoc : allSensedLocs) {
-            // Can't actually sense location
-            if (!canSenseLocation(mapLoc)) {
-                continue;
-            }
-            MapInfo mapInfo = getMapInfo(mapLoc);
-            validSensedMapInfo.add(mapInfo);
+        MapLocation[] sensedLocs = gameWorld.getAllSensableLocationsWithinRadiusSquared(center,
+                actualRadiusSquared, this.robot.getChirality(), this.robot);
+        MapInfo[] sensedMapInfos = new MapInfo[sensedLocs.length];
+        for (int i = 0; i < sensedLocs.length; i++) {
+            sensedMapInfos[i] = getMapInfo(sensedLocs[i]);
         }
-        return validSensedMapInfo.toArray(new MapInfo[validSensedMapInfo.size()]);
+        return sensedMapInfos;
     }
 
     @Override
@@ -699,11 +711,8 @@ public final class RobotControllerImpl implements RobotController {
         assertRadiusNonNegative(radiusSquared);
         int actualRadiusSquared = radiusSquared == -1 ? this.robot.getVisionRadiusSquared()
                 : Math.min(radiusSquared, this.robot.getVisionRadiusSquared());
-        MapLocation[] possibleLocs = gameWorld.getAllLocationsWithinRadiusSquared(center,
-                actualRadiusSquared, this.robot.getChirality());
-        List<MapLocation> visibleLocs = Arrays.asList(possibleLocs).stream().filter(x -> canSenseLocation(x))
-                .collect(Collectors.toList());
-        return visibleLocs.toArray(new MapLocation[visibleLocs.size()]);
+        return gameWorld.getAllSensableLocationsWithinRadiusSquared(center, actualRadiusSquared,
+                this.robot.getChirality(), this.robot);
     }
 
     // ***********************************
@@ -0,0 +1,53 @@
+package battlecode.world;
+
+import java.util.Arrays;
+
+/**
+ * A set of robot IDs that is emptied in constant time, for code that needs
+ * a fresh set over and over, like the sensing methods.
+ *
+ * Each ID's slot in an array holds the generation it was last added in,
+ * and clear() starts a new generation. IDs index the array directly: they
+ * are small and dense (see IDGenerator), so the array stays a few tens of
+ * thousands of ints long, and is only grown when a larger ID is added.
+ */
+public final class RobotIDSet {
+
+    private int[] stamps = new int[IDGenerator.MIN_ID + IDGenerator.ID_BLOCK_SIZE];
+    private int generation = 1;
+
+    /**
+     * Empties the set.
+     */
+    public void clear() {
+        if (++generation == 0) {
+            // Every stamp could be mistaken for the new generation
+            Arrays.fill(stamps, 0);
+            generation = 1;
+        }
+    }
+
+    /**
+     * Adds an ID to the set.
+     *
+     * @param id a robot ID, which is never negative
+     * @return whether the ID wasn't in the set already
+     */
+    public boolean add(int id) {
+        if (id >= stamps.length) {
+            stamps = Arrays.copyOf(stamps, Math.max(id + 1, stamps.length * 2));
+        }
+        if (stamps[id] == generation) {
+            return false;
+        }
+        stamps[id] = generation;
+        return true;
+    }
+
+    /**
+     * @return whether an ID is in the set
+     */
+    public boolean contains(int id) {
+        return id < stamps.length && stamps[id] == generation;
+    }
+}
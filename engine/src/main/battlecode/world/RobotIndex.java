@@ -0,0 +1,164 @@
+package battlecode.world;
+
+import battlecode.common.Team;
+
+import java.util.Arrays;
+
+/**
+ * Which tiles have a robot on them, by team and by square bucket of tiles,
+ * so that finding the robots in an area only looks at the buckets that
+ * overlap it rather than at every tile.
+ *
+ * Tiles are given by index, x + y * width, relative to the map's origin.
+ * GameWorld keeps it in step with its robots array.
+ */
+public class RobotIndex {
+
+    /**
+     * Buckets are 2^BUCKET_SHIFT tiles on a side.
+     */
+    private static final int BUCKET_SHIFT = 3;
+
+    private static final Team[] TEAMS = Team.values();
+
+    private final int width;
+    private final int height;
+    private final int bucketsWide;
+
+    /**
+     * The occupied tiles of each bucket, for each team, in no particular
+     * order; only the first counts[team][bucket] are used.
+     */
+    private final int[][][] tiles;
+    private final int[][] counts;
+
+    /**
+     * For each tile, one more than the ordinal of the team of the robot on
+     * it, or 0 if there isn't one; and where it is in its bucket.
+     */
+    private final byte[] tileTeams;
+    private final int[] tileSlots;
+
+    public RobotIndex(int width, int height) {
+        this.width = width;
+        this.height = height;
+        this.bucketsWide = ((width - 1) >> BUCKET_SHIFT) + 1;
+        int buckets = bucketsWide * (((height - 1) >> BUCKET_SHIFT) + 1);
+        this.tiles = new int[TEAMS.length][buckets][];
+        this.counts = new int[TEAMS.length][buckets];
+        this.tileTeams = new byte[width * height];
+        this.tileSlots = new int[width * height];
+    }
+
+    /**
+     * Records a robot on a tile, replacing whatever was there.
+     */
+    public void add(int tile, Team team) {
+        remove(tile);
+
+        int t = team.ordinal();
+        int bucket = bucketOf(tile);
+        int[] bucketTiles = tiles[t][bucket];
+        int count = counts[t][bucket];
+        if (bucketTiles == null) {
+            bucketTiles = tiles[t][bucket] = new int[4];
+        } else if (count == bucketTiles.length) {
+            bucketTiles = tiles[t][bucket] = Arrays.copyOf(bucketTiles, count * 2);
+        }
+        bucketTiles[count] = tile;
+        counts[t][bucket] = count + 1;
+        tileTeams[tile] = (byte) (t + 1);
+        tileSlots[tile] = count;
+    }
+
+    /**
+     * Records that a tile is empty.
+     */
+    public void remove(int tile) {
+        if (tileTeams[tile] == 0) {
+            return;
+        }
+
+        int t = tileTeams[tile] - 1;
+        int bucket = bucketOf(tile);
+        int[] bucketTiles = tiles[t][bucket];
+        int last = --counts[t][bucket];
+
+        // Move the bucket's last tile into this one's place
+        int slot = tileSlots[tile];
+        bucketTiles[slot] = bucketTiles[last];
+        tileSlots[bucketTiles[slot]] = slot;
+        tileTeams[tile] = 0;
+    }
+
+    /**
+     * Finds the occupied tiles in a rectangle, in no particular order.
+     *
+     * @param minX  the least x in the rectangle, relative to the origin
+     * @param minY  the least y
+     * @param maxX  the greatest x
+     * @param maxY  the greatest y
+     * @param team  the team whose robots to find, or null for every team's
+     * @return the tiles
+     */
+    public int[] tilesWithin(int minX, int minY, int maxX, int maxY, Team team) {
+        int area = (Math.min(maxX, width - 1) - Math.max(minX, 0) + 1)
+                * (Math.min(maxY, height - 1) - Math.max(minY, 0) + 1);
+        int[] found = new int[Math.max(Math.min(area, 16), 0)];
+        int n;
+        while ((n = tilesWithin(minX, minY, maxX, maxY, team, found)) < 0) {
+            found = new int[Math.min(found.length * 2, area)];
+        }
+        return Arrays.copyOf(found, n);
+    }
+
+    /**
+     * Finds the occupied tiles in a rectangle, in no particular order, and
+     * puts them at the start of an array rather than in a new one. An array
+     * with room for every tile of the map is always big enough.
+     *
+     * @param minX  the least x in the rectangle, relative to the origin
+     * @param minY  the least y
+     * @param maxX  the greatest x
+     * @param maxY  the greatest y
+     * @param team  the team whose robots to find, or null for every team's
+     * @param found where to put the tiles
+     * @return how many tiles there are, or -1 if they don't fit
+     */
+    public int tilesWithin(int minX, int minY, int maxX, int maxY, Team team, int[] found) {
+        minX = Math.max(minX, 0);
+        minY = Math.max(minY, 0);
+        maxX = Math.min(maxX, width - 1);
+        maxY = Math.min(maxY, height - 1);
+        int n = 0;
+        if (minX <= maxX && minY <= maxY) {
+            for (int t = 0; t < TEAMS.length; t++) {
+                if (team != null && TEAMS[t] != team) {
+                    continue;
+                }
+                for (int by = minY >> BUCKET_SHIFT; by <= maxY >> BUCKET_SHIFT; by++) {
+                    for (int bx = minX >> BUCKET_SHIFT; bx <= maxX >> BUCKET_SHIFT; bx++) {
+                        int bucket = bx + by * bucketsWide;
+                        int[] bucketTiles = tiles[t][bucket];
+                        for (int i = counts[t][bucket] - 1; i >= 0; i--) {
+                            int tile = bucketTiles[i];
+                            int x = tile % width;
+                            int y = tile / width;
+                            if (x >= minX && x <= maxX && y >= minY && y <= maxY) {
+                                if (n == found.length) {
+                                    return -1;
+                                }
+                                found[n++] = tile;
+                            }
+                        }
+                    }
+                }
+            }
+        }
+        return n;
+    }
+
+    private int bucketOf(int tile) {
+        return ((tile % width) >> BUCKET_SHIFT) + ((tile / width) >> BUCKET_SHIFT) * bucketsWide;
+    }
+}
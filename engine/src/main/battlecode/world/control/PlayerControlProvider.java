@@ -4,15 +4,20 @@ import battlecode.common.GameConstants;
 import battlecode.common.Team;
 import battlecode.crossplay.CrossPlay;
 import battlecode.crossplay.CrossPlayLanguage;
+import battlecode.instrumenter.InstrumentationCache;
 import battlecode.instrumenter.InstrumentationException;
+import battlecode.instrumenter.SandboxPool;
 import battlecode.instrumenter.TeamClassLoaderFactory;
 import battlecode.instrumenter.SandboxedRobotPlayer;
 import battlecode.instrumenter.profiler.Profiler;
 import battlecode.instrumenter.profiler.ProfilerCollection;
+import battlecode.server.Config;
 import battlecode.server.ErrorReporter;
 import battlecode.world.GameWorld;
 import battlecode.world.InternalRobot;
 
+import java.io.File;
+import java.io.IOException;
 import java.io.OutputStream;
 import java.util.HashMap;
 import java.util.Map;
@@ -27,9 +32,10 @@ import java.util.Map;
 public class PlayerControlProvider implements RobotControlProvider {
 
     /**
-     * Used to create ClassLoaders for this team.
+     * Sandboxes prepared ahead of time for new robots, and the factory
+     * that creates their ClassLoaders.
      */
-    private final TeamClassLoaderFactory factory;
+    private final SandboxPool sandboxPool;
 
     /**
      * The sandboxed robot players we're using to control robots;
@@ -66,6 +72,17 @@ public class PlayerControlProvider implements RobotControlProvider {
      */
     private final OutputStream robotOut;
 
+    /**
+     * Prepended to the robot output copied to System.out, so that matches
+     * running at the same time can be told apart; usually empty.
+     */
+    private final String outputLabel;
+
+    /**
+     * The configuration of the game we're providing for.
+     */
+    private final Config options;
+
     /**
      * The team this control provider controls.
      */
@@ -77,6 +94,11 @@ public class PlayerControlProvider implements RobotControlProvider {
      */
     private ProfilerCollection profilerCollection;
 
+    /**
+     * Whether the team's robots are profiled.
+     */
+    private final boolean profilingEnabled;
+
     /**
      * The match id of the current match. Incremented by one every time a new match starts.
      */
@@ -92,30 +114,75 @@ public class PlayerControlProvider implements RobotControlProvider {
      *
      * @param team             the team we're loading
      * @param teamPackage      the name / package of the team we're loading
-     * @param teamURL          the url of the classes for the team;
+     * @param sandboxPool      the team's sandboxes, from createSandboxPool;
+     *                         may be shared with the providers of other
+     *                         matches, as long as only one runs at a time
      * @param robotOut         the output that robots should write to
+     * @param options          the configuration of the game
      * @param profilingEnabled whether profiling is enabled or not
+     * @param outputLabel      prepended to robot output copied to System.out
      */
     public PlayerControlProvider(Team team,
                                  String teamPackage,
                                  CrossPlayLanguage teamLanguage,
                                  CrossPlay crossPlayServer,
-                                 String teamURL,
+                                 SandboxPool sandboxPool,
                                  OutputStream robotOut,
-                                 boolean profilingEnabled) {
+                                 Config options,
+                                 boolean profilingEnabled,
+                                 String outputLabel) {
         this.teamPackage = teamPackage;
         this.teamLanguage = teamLanguage;
         this.crossPlayServer = crossPlayServer;
         this.sandboxes = new HashMap<>(); // GameWorld maintains order for us
-        this.factory = new TeamClassLoaderFactory(teamURL);
+        this.sandboxPool = sandboxPool;
         this.robotOut = robotOut;
+        this.outputLabel = outputLabel;
+        this.options = options;
         this.team = team;
 
+        this.profilingEnabled = profilingEnabled;
         if (profilingEnabled) {
             profilerCollection = new ProfilerCollection();
         }
     }
 
+    /**
+     * Creates the classloader factory and sandbox pool of a team.
+     *
+     * @param teamURL          the url of the classes for the team
+     * @param options          the configuration of the game
+     * @param profilingEnabled whether profiling is enabled or not
+     * @return the team's sandbox pool
+     */
+    public static SandboxPool createSandboxPool(String teamURL, Config options, boolean profilingEnabled) {
+        final TeamClassLoaderFactory factory = new TeamClassLoaderFactory(teamURL,
+                options.getBoolean("bc.engine.debug-methods"),
+                options.getBoolean("bc.engine.share-library-classes"), createInstrumentationCache(options));
+        return new SandboxPool(factory, profilingEnabled, options.getInt("bc.engine.sandbox-pool-size"));
+    }
+
+    /**
+     * @param options the configuration of the game
+     * @return the disk cache of instrumented classes, or null if there is none
+     */
+    private static InstrumentationCache createInstrumentationCache(Config options) {
+        String directory = options.get("bc.engine.instrumentation-cache");
+        if (directory == null || directory.isEmpty()) {
+            return null;
+        }
+        try {
+            return new InstrumentationCache(new File(directory));
+        } catch (IOException e) {
+            ErrorReporter.warn("Not caching instrumented classes: " + e.getMessage());
+            return null;
+        }
+    }
+
+    public String getOutputLabel() {
+        return outputLabel;
+    }
+
     public long getTimeElapsed() {
         return totalPlayerTime;
     }
@@ -127,11 +194,17 @@ public class PlayerControlProvider implements RobotControlProvider {
     @Override
     public void matchStarted(GameWorld gameWorld) {
         this.gameWorld = gameWorld;
+        if (teamLanguage == CrossPlayLanguage.JAVA && options.getBoolean("bc.engine.preinstrument")) {
+            this.sandboxPool.getFactory().preinstrument(profilingEnabled);
+        }
+        this.sandboxPool.refill();
         // matchId++;
     }
 
     @Override
     public void matchEnded() {
+        gameWorld.getGameStats().setPlayerTime(team, totalPlayerTime);
+
         if (profilerCollection != null) {
             gameWorld.setProfilerCollection(team, profilerCollection);
             profilerCollection = new ProfilerCollection();
@@ -162,12 +235,16 @@ public class PlayerControlProvider implements RobotControlProvider {
                     crossPlayServer,
                     robot.getController(),
                     robot.getID(),
-                    factory.createLoader(profiler != null),
+                    sandboxPool.take(),
                     robotOut,
+                    options,
                     profiler,
                     this
             );
             this.sandboxes.put(robot.getID(), player);
+
+            // Get a replacement ready before the next spawn
+            sandboxPool.refill();
         } catch (InstrumentationException e) {
             ErrorReporter.report("Error while loading player "+ teamPackage +": "+e.getMessage(), false);
             robot.die_exception();
@@ -0,0 +1,87 @@
+package battlecode.instrumenter;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.util.Properties;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests that the System robots see (inject.System) belongs to whichever
+ * robot is running, including when a team's robots share library classes.
+ */
+public class InjectedSystemTest {
+
+    private static final String SYSTEM = "battlecode.instrumenter.inject.System";
+
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder();
+
+    private static PlayerContext context(ByteArrayOutputStream out, String property) {
+        PlayerContext context = new PlayerContext(null, null, new BytecodeBudget(), 0, null, null);
+        context.out = new PrintStream(out, true);
+        context.properties = new Properties();
+        context.properties.setProperty("bc.testing.robot", property);
+        return context;
+    }
+
+    private static String getProperty(Class<?> system, String key) throws Exception {
+        return (String) system.getMethod("getProperty", String.class).invoke(null, key);
+    }
+
+    @Test
+    public void testSharedLibraryFollowsActiveRobot() throws Exception {
+        TeamClassLoaderFactory factory = new TeamClassLoaderFactory(temp.getRoot().getPath(), false, true);
+        TeamClassLoaderFactory.Loader a = factory.createLoader(false);
+        TeamClassLoaderFactory.Loader b = factory.createLoader(false);
+
+        // One copy for the team, which library classes and robots both use
+        Class<?> system = a.loadClass(SYSTEM);
+        assertSame(system, b.loadClass(SYSTEM));
+        assertSame(system, a.getLibrary().loadClass(SYSTEM));
+
+        ByteArrayOutputStream outA = new ByteArrayOutputStream();
+        ByteArrayOutputStream outB = new ByteArrayOutputStream();
+        PlayerContext contextA = context(outA, "a");
+        PlayerContext contextB = context(outB, "b");
+        PrintStream out = (PrintStream) system.getField("out").get(null);
+
+        a.getLibrary().setActive(contextA);
+        out.print("from a");
+        assertEquals("a", getProperty(system, "bc.testing.robot"));
+
+        a.getLibrary().setActive(contextB);
+        out.print("from b");
+        assertEquals("b", getProperty(system, "bc.testing.robot"));
+
+        assertEquals("from a", outA.toString());
+        assertEquals("from b", outB.toString());
+
+        // Output without a running robot goes nowhere
+        a.getLibrary().setActive(null);
+        out.print("from nobody");
+        assertEquals("from a", outA.toString());
+        assertEquals("from b", outB.toString());
+    }
+
+    @Test
+    public void testSeparateLibrariesHaveTheirOwn() throws Exception {
+        TeamClassLoaderFactory factory = new TeamClassLoaderFactory(temp.getRoot().getPath(), false, false);
+        TeamClassLoaderFactory.Loader a = factory.createLoader(false);
+        TeamClassLoaderFactory.Loader b = factory.createLoader(false);
+
+        Class<?> systemA = a.loadClass(SYSTEM);
+        Class<?> systemB = b.loadClass(SYSTEM);
+        assertNotSame(systemA, systemB);
+
+        ByteArrayOutputStream outA = new ByteArrayOutputStream();
+        a.setActive(context(outA, "a"));
+        ((PrintStream) systemA.getField("out").get(null)).print("from a");
+        assertEquals("from a", outA.toString());
+        assertEquals("a", getProperty(systemA, "bc.testing.robot"));
+    }
+}
@@ -0,0 +1,128 @@
+package battlecode.instrumenter;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import static org.junit.Assert.*;
+
+public class InstrumentationCacheTest {
+
+    private static final byte[] CLASS = {(byte) 0xCA, (byte) 0xFE, (byte) 0xBA, (byte) 0xBE, 0, 0, 0, 65};
+
+    /**
+     * A team class that does some counting.
+     */
+    private static final String WORK = String.join("\n",
+            "package cachetest;",
+            "",
+            "public class Work {",
+            "    public static int run() {",
+            "        int[] squares = new int[100];",
+            "        for (int i = 0; i < squares.length; i++) {",
+            "            squares[i] = i * i;",
+            "        }",
+            "        int sum = 0;",
+            "        for (int square : squares) {",
+            "            sum += square;",
+            "        }",
+            "        return sum;",
+            "    }",
+            "}",
+            "");
+
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder();
+
+    @Test
+    public void testKeyFollowsInputs() throws Exception {
+        InstrumentationCache cache = new InstrumentationCache(temp.newFolder("cache"));
+
+        String key = cache.keyFor("team", "a.RobotPlayer", CLASS, true, false, false);
+        assertEquals(key, cache.keyFor("team", "a.RobotPlayer", CLASS, true, false, false));
+        assertNotEquals(key, cache.keyFor("library", "a.RobotPlayer", CLASS, true, false, false));
+        assertNotEquals(key, cache.keyFor("team", "a.Other", CLASS, true, false, false));
+        assertNotEquals(key, cache.keyFor("team", "a.RobotPlayer", new byte[] {1}, true, false, false));
+        assertNotEquals(key, cache.keyFor("team", "a.RobotPlayer", CLASS, false, false, false));
+        assertNotEquals(key, cache.keyFor("team", "a.RobotPlayer", CLASS, true, true, false));
+        assertNotEquals(key, cache.keyFor("team", "a.RobotPlayer", CLASS, true, false, true));
+    }
+
+    @Test
+    public void testRoundTrip() throws Exception {
+        File dir = temp.newFolder("cache");
+        InstrumentationCache cache = new InstrumentationCache(dir);
+
+        assertNull(cache.get("abc"));
+        cache.put("abc", CLASS);
+        assertArrayEquals(CLASS, new InstrumentationCache(dir).get("abc"));
+
+        // Whatever isn't a class file is treated as missing
+        Files.write(new File(dir, "abc.class").toPath(), new byte[] {1, 2, 3, 4, 5});
+        assertNull(cache.get("abc"));
+    }
+
+    @Test
+    public void testLoaderUsesCache() throws Exception {
+        File team = compileTeam();
+        File dir = temp.newFolder("cache");
+
+        int firstCount = runWork(team, dir);
+        assertTrue("the run should have been charged bytecodes", firstCount > 0);
+        File[] cached = dir.listFiles();
+        assertTrue("the team's class should have been cached", cached.length > 0);
+
+        // Loading from the cache leaves every entry as it was
+        for (File file : cached) {
+            assertTrue(file.setLastModified(1000000000000L));
+        }
+        int secondCount = runWork(team, dir);
+        assertEquals(cached.length, dir.listFiles().length);
+        for (File file : dir.listFiles()) {
+            assertEquals(file.getName(), 1000000000000L, file.lastModified());
+        }
+
+        assertEquals(firstCount, secondCount);
+        assertEquals(firstCount, runWork(team, null));
+    }
+
+    /**
+     * @return a team directory with the Work class compiled into it
+     */
+    private File compileTeam() throws Exception {
+        File source = new File(temp.newFolder("src", "cachetest"), "Work.java");
+        Files.write(source.toPath(), WORK.getBytes(StandardCharsets.UTF_8));
+
+        File team = temp.newFolder("team");
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        assertEquals(0, compiler.run(null, null, null, "-d", team.getPath(), source.getPath()));
+        return team;
+    }
+
+    /**
+     * Loads the Work class through a fresh factory, and runs it.
+     *
+     * @param team  the team directory
+     * @param cache the directory of the disk cache, or null for none
+     * @return the bytecodes the run was charged
+     */
+    private static int runWork(File team, File cache) throws Exception {
+        TeamClassLoaderFactory factory = new TeamClassLoaderFactory(team.getPath(), false, false,
+                cache != null ? new InstrumentationCache(cache) : null);
+        TeamClassLoaderFactory.Loader loader = factory.createLoader(false);
+
+        BytecodeBudget budget = new BytecodeBudget();
+        PlayerContext context = new PlayerContext(null, null, budget, 0, null, null);
+        context.bytecodesLeft = budget.limit = 1000000;
+        loader.setActive(context);
+
+        assertEquals(328350, loader.loadClass("cachetest.Work").getMethod("run").invoke(null));
+        return context.getBytecodeNum();
+    }
+}
@@ -0,0 +1,60 @@
+package battlecode.instrumenter;
+
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class TurnHandoffTest {
+
+    /**
+     * Checks that the engine and robot threads take strict turns, and that
+     * the engine sees everything the robot did during its turn.
+     */
+    private static void checkTakesTurns(TurnHandoff handoff, Thread.Builder builder) throws InterruptedException {
+        final AtomicInteger turns = new AtomicInteger();
+        final int[] plain = new int[1];
+
+        final Thread[] robot = new Thread[1];
+        handoff.start(task -> robot[0] = builder.start(task), () -> {
+            try {
+                for (int i = 0; i < 1000; i++) {
+                    plain[0]++;
+                    turns.incrementAndGet();
+                    handoff.yieldToEngine();
+                }
+            } catch (InterruptedException e) {
+                fail("Robot interrupted");
+            } finally {
+                handoff.finish();
+            }
+        });
+        assertEquals(1, turns.get());
+        for (int i = 2; i <= 1000; i++) {
+            handoff.runRobot();
+            assertEquals(i, turns.get());
+            assertEquals(i, plain[0]);
+        }
+
+        // The last step lets the robot run off the end and finish
+        handoff.runRobot();
+        robot[0].join();
+        assertEquals(1000, turns.get());
+    }
+
+    @Test(timeout = 10000)
+    public void testPlatformThread() throws InterruptedException {
+        checkTakesTurns(new TurnHandoff(), Thread.ofPlatform());
+    }
+
+    @Test(timeout = 10000)
+    public void testVirtualThread() throws InterruptedException {
+        checkTakesTurns(new TurnHandoff(), Thread.ofVirtual());
+    }
+
+    @Test(timeout = 10000)
+    public void testSpinning() throws InterruptedException {
+        checkTakesTurns(new TurnHandoff(10000), Thread.ofPlatform());
+    }
+}
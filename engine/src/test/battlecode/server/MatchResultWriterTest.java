@@ -0,0 +1,50 @@
+package battlecode.server;
+
+import battlecode.common.Team;
+import battlecode.world.DominationFactor;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Test;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class MatchResultWriterTest {
+
+    private static MatchResult result(String map, Team winner) {
+        return new MatchResult(map, "org.bananas", "org.yellow", true,
+                winner, DominationFactor.MORE_POINTS, 1234, 56,
+                new long[] {1000, 2000}, new long[] {30, 40});
+    }
+
+    @Test
+    public void testOneLinePerMatch() throws Exception {
+        File file = File.createTempFile("results", ".jsonl");
+        file.deleteOnExit();
+
+        try (MatchResultWriter writer = new MatchResultWriter(file)) {
+            writer.write(result("honolulu", Team.A));
+            writer.write(result("oahu", Team.B));
+        }
+
+        List<String> lines = Files.readAllLines(file.toPath(), StandardCharsets.UTF_8);
+        assertEquals(2, lines.size());
+
+        JsonNode first = new ObjectMapper().readTree(lines.get(0));
+        assertEquals("honolulu", first.get("map").asText());
+        assertEquals("org.bananas", first.get("teamA").asText());
+        assertEquals("org.yellow", first.get("teamB").asText());
+        assertTrue(first.get("teamsReversed").asBoolean());
+        assertEquals("A", first.get("winner").asText());
+        assertEquals("MORE_POINTS", first.get("dominationFactor").asText());
+        assertEquals(1234, first.get("rounds").asInt());
+        assertEquals(2000, first.get("bytecodesB").asLong());
+        assertEquals(30, first.get("playerTimeNanosA").asLong());
+
+        assertEquals("B", new ObjectMapper().readTree(lines.get(1)).get("winner").asText());
+    }
+}
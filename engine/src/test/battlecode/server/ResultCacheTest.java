@@ -0,0 +1,100 @@
+package battlecode.server;
+
+import battlecode.common.Team;
+import battlecode.crossplay.CrossPlayLanguage;
+import battlecode.world.DominationFactor;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.Assert.*;
+
+public class ResultCacheTest {
+
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder();
+
+    private static GameInfo game(Path teamDir) {
+        return new GameInfo(
+                "bananas", CrossPlayLanguage.JAVA, "org.bananas", teamDir.toString(),
+                "yellow", CrossPlayLanguage.JAVA, "org.yellow", teamDir.toString(),
+                new String[] {"honolulu"}, null, false
+        );
+    }
+
+    @Test
+    public void testKeyFollowsInputs() throws Exception {
+        Path teamDir = temp.newFolder("team").toPath();
+        Path classFile = teamDir.resolve("RobotPlayer.class");
+        Files.write(classFile, "one".getBytes(StandardCharsets.UTF_8));
+
+        ResultCache cache = new ResultCache(temp.newFolder("cache"));
+        byte[] map = {1, 2, 3};
+
+        Config options = new Config(new String[0]);
+
+        String key = cache.keyFor(game(teamDir), map, "", false, options);
+        assertEquals(key, cache.keyFor(game(teamDir), map, "", false, new Config(options)));
+        assertNotEquals(key, cache.keyFor(game(teamDir), new byte[] {1, 2, 4}, "", false, options));
+        assertNotEquals(key, cache.keyFor(game(teamDir), map, "7", false, options));
+        assertNotEquals(key, cache.keyFor(game(teamDir), map, "", true, options));
+
+        Files.write(classFile, "two".getBytes(StandardCharsets.UTF_8));
+        assertNotEquals(key, cache.keyFor(game(teamDir), map, "", false, options));
+    }
+
+    @Test
+    public void testKeyFollowsEngineOptions() throws Exception {
+        Path teamDir = temp.newFolder("team").toPath();
+        ResultCache cache = new ResultCache(temp.newFolder("cache"));
+        byte[] map = {1, 2, 3};
+
+        Config options = new Config(new String[0]);
+        options.set("bc.engine.debug-methods", "false");
+        options.set("bc.engine.execution", "threads");
+        options.set("bc.engine.virtual-threads", "false");
+        options.set("bc.engine.share-library-classes", "false");
+        String key = cache.keyFor(game(teamDir), map, "", false, options);
+
+        String[][] changes = {
+                {"bc.engine.debug-methods", "true"},
+                {"bc.engine.execution", "continuations"},
+                {"bc.engine.virtual-threads", "true"},
+                {"bc.engine.share-library-classes", "true"},
+        };
+        for (String[] change : changes) {
+            Config changed = new Config(options);
+            changed.set(change[0], change[1]);
+            assertNotEquals(change[0], key, cache.keyFor(game(teamDir), map, "", false, changed));
+        }
+
+        // Options that don't change results don't change the key
+        Config quiet = new Config(options);
+        quiet.set("bc.engine.silence-a", "true");
+        assertEquals(key, cache.keyFor(game(teamDir), map, "", false, quiet));
+    }
+
+    @Test
+    public void testRoundTrip() throws Exception {
+        File dir = temp.newFolder("cache");
+        ResultCache cache = new ResultCache(dir);
+
+        assertNull(cache.get("abc"));
+
+        cache.put("abc", new MatchResult("honolulu", "org.bananas", "org.yellow", false,
+                Team.B, DominationFactor.KILL_ALL_RAT_KINGS, 321, 10,
+                new long[] {1, 2}, new long[] {3, 4}));
+
+        MatchResult cached = new ResultCache(dir).get("abc");
+        assertNotNull(cached);
+        assertEquals(Team.B, cached.getWinner());
+        assertEquals(DominationFactor.KILL_ALL_RAT_KINGS, cached.getDominationFactor());
+        assertEquals(321, cached.getFinalRound());
+        assertEquals(2, cached.getTotalBytecodes(Team.B));
+    }
+}
@@ -0,0 +1,58 @@
+package battlecode.server;
+
+import battlecode.common.Team;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class SprtTest {
+
+    private static int matchesUntilConcluded(Sprt sprt, Team winner) {
+        int matches = 0;
+        while (sprt.getOutcome() == Sprt.Outcome.CONTINUE) {
+            sprt.addResult(winner);
+            matches++;
+            assertTrue("SPRT never concluded", matches < 10000);
+        }
+        return matches;
+    }
+
+    @Test
+    public void testStopsEarlyWhenOneSideDominates() {
+        Sprt winning = new Sprt(0, 10, 0.05, 0.05);
+        int matches = matchesUntilConcluded(winning, Team.A);
+        assertEquals(Sprt.Outcome.ACCEPT_H1, winning.getOutcome());
+        assertTrue(winning.getLogLikelihoodRatio() >= winning.getUpperBound());
+        assertTrue(matches > 1);
+
+        Sprt losing = new Sprt(0, 10, 0.05, 0.05);
+        matchesUntilConcluded(losing, Team.B);
+        assertEquals(Sprt.Outcome.ACCEPT_H0, losing.getOutcome());
+        assertTrue(losing.getLogLikelihoodRatio() <= losing.getLowerBound());
+
+        // A bigger difference to detect takes fewer matches
+        assertTrue(matchesUntilConcluded(new Sprt(0, 200, 0.05, 0.05), Team.A) < matches);
+    }
+
+    @Test
+    public void testEvenResultsStayInconclusive() {
+        Sprt sprt = new Sprt(0, 10, 0.05, 0.05);
+        for (int i = 0; i < 20; i++) {
+            assertEquals(Sprt.Outcome.CONTINUE, sprt.addResult(i % 2 == 0 ? Team.A : Team.B));
+        }
+    }
+
+    @Test
+    public void testOutcomeIsFinal() {
+        Sprt sprt = new Sprt(0, 200, 0.05, 0.05);
+        matchesUntilConcluded(sprt, Team.A);
+        for (int i = 0; i < 100; i++) {
+            assertEquals(Sprt.Outcome.ACCEPT_H1, sprt.addResult(Team.B));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRejectsBadHypotheses() {
+        new Sprt(10, 0, 0.05, 0.05);
+    }
+}
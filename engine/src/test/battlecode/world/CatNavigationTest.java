@@ -0,0 +1,128 @@
+package battlecode.world;
+
+import battlecode.common.Direction;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class CatNavigationTest {
+
+    @Test
+    public void testOpenMap() {
+        CatNavigation nav = new CatNavigation(5, 5, new boolean[25], MapSymmetry.ROTATIONAL);
+
+        assertEquals(Direction.CENTER, nav.getDirection(0, 0, 0));
+        assertEquals(Direction.SOUTHWEST, nav.getDirection(2 + 2 * 5, 0, 0));
+        // A chirality 0 cat sticks out to the north and east
+        assertNull(nav.getDirection(4 + 4 * 5, 0, 0));
+    }
+
+    @Test
+    public void testMapsWithTheSameWallsShare() {
+        boolean[] walls = new boolean[12];
+        walls[5] = true;
+        CatNavigation nav = CatNavigation.of(4, 3, walls, MapSymmetry.VERTICAL);
+
+        assertSame(nav, CatNavigation.of(4, 3, walls.clone(), MapSymmetry.VERTICAL));
+        assertNotSame(nav, CatNavigation.of(4, 3, walls, MapSymmetry.HORIZONTAL));
+        assertNotSame(nav, CatNavigation.of(3, 4, walls, MapSymmetry.VERTICAL));
+        walls[6] = true;
+        assertNotSame(nav, CatNavigation.of(4, 3, walls, MapSymmetry.VERTICAL));
+    }
+
+    @Test
+    public void testChiralityIsMirrored() {
+        int width = 6, height = 5;
+        CatNavigation nav = new CatNavigation(width, height, new boolean[width * height], MapSymmetry.ROTATIONAL);
+
+        for (int to = 0; to < width * height; to++) {
+            for (int from = 0; from < width * height; from++) {
+                Direction mirrored = nav.getDirection(width * height - 1 - from, width * height - 1 - to, 0);
+                Direction direction = nav.getDirection(from, to, 1);
+                assertEquals(mirrored == null ? null : GameWorld.flipDirBySymmetry(mirrored, MapSymmetry.ROTATIONAL),
+                        direction);
+            }
+        }
+    }
+
+    @Test
+    public void testPathsAreShortestAndAvoidWalls() {
+        // More targets than fields are kept, so some are computed twice
+        int width = 20, height = 15;
+        Random random = new Random(2026);
+        boolean[] walls = new boolean[width * height];
+        for (int i = 0; i < walls.length; i++) {
+            walls[i] = random.nextInt(6) == 0;
+        }
+        CatNavigation nav = new CatNavigation(width, height, walls, MapSymmetry.HORIZONTAL);
+
+        for (int round = 0; round < 2; round++) {
+            for (int to = 0; to < width * height; to++) {
+                int[] distances = distancesTo(width, height, walls, to);
+                for (int from = 0; from < width * height; from++) {
+                    assertEquals(distances[from], walk(nav, width, walls, from, to));
+                }
+            }
+        }
+    }
+
+    /**
+     * Follows the directions from one tile to another.
+     *
+     * @return the number of moves taken, or -1 if there aren't directions
+     */
+    private static int walk(CatNavigation nav, int width, boolean[] walls, int from, int to) {
+        int moves = 0;
+        int at = from;
+        Direction d;
+        while ((d = nav.getDirection(at, to, 0)) != Direction.CENTER) {
+            if (d == null) {
+                assertEquals(from, at);
+                return -1;
+            }
+            at += d.dx + d.dy * width;
+            assertTrue(at == to || fits(width, walls.length / width, walls, at % width, at / width));
+            moves++;
+        }
+        assertEquals(to, at);
+        return moves;
+    }
+
+    /**
+     * The number of moves a chirality 0 cat needs to get to a tile from
+     * every other, or -1 if it can't.
+     */
+    private static int[] distancesTo(int width, int height, boolean[] walls, int to) {
+        int[] distances = new int[width * height];
+        Arrays.fill(distances, -1);
+        distances[to] = 0;
+        for (boolean changed = true; changed; ) {
+            changed = false;
+            for (int i = 0; i < distances.length; i++) {
+                if (i == to || !fits(width, height, walls, i % width, i / width)) {
+                    continue;
+                }
+                for (Direction d : Direction.allDirections()) {
+                    int x = i % width + d.dx, y = i / width + d.dy;
+                    if (d == Direction.CENTER || x < 0 || y < 0 || x >= width || y >= height) {
+                        continue;
+                    }
+                    int next = distances[x + y * width];
+                    if (next >= 0 && (distances[i] < 0 || next + 1 < distances[i])) {
+                        distances[i] = next + 1;
+                        changed = true;
+                    }
+                }
+            }
+        }
+        return distances;
+    }
+
+    private static boolean fits(int width, int height, boolean[] walls, int x, int y) {
+        return x + 1 < width && y + 1 < height && !walls[x + y * width] && !walls[x + 1 + y * width]
+                && !walls[x + (y + 1) * width] && !walls[x + 1 + (y + 1) * width];
+    }
+}
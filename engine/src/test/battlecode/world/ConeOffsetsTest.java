@@ -0,0 +1,93 @@
+package battlecode.world;
+
+import battlecode.common.Direction;
+import battlecode.common.MapLocation;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class ConeOffsetsTest {
+
+    private static final int[] RADII = {-1, 0, 2, 8, 20, 34};
+    private static final double[] ANGLES = {90, 180, 360};
+
+    @Test
+    public void testContainsMatchesIsWithinDistanceSquared() {
+        MapLocation center = new MapLocation(7, 3);
+        for (int radiusSquared : RADII) {
+            for (Direction facing : Direction.values()) {
+                for (double angle : ANGLES) {
+                    for (boolean useBottomLeft : new boolean[] {false, true}) {
+                        ConeOffsets offsets = ConeOffsets.of(radiusSquared, facing, angle, useBottomLeft);
+                        for (int x = -5; x < 20; x++) {
+                            for (int y = -9; y < 16; y++) {
+                                assertEquals(center.isWithinDistanceSquared(new MapLocation(x, y), radiusSquared,
+                                                facing, angle, useBottomLeft),
+                                        offsets.contains(center, x, y));
+                            }
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testLocationsAroundAreClippedAndOrdered() {
+        MapLocation origin = new MapLocation(0, 0);
+        int width = 10, height = 8;
+        for (int radiusSquared : RADII) {
+            for (Direction facing : Direction.values()) {
+                ConeOffsets offsets = ConeOffsets.of(radiusSquared, facing, 90, false);
+                for (MapLocation center : new MapLocation[] {new MapLocation(0, 0), new MapLocation(4, 5),
+                        new MapLocation(9, 7), new MapLocation(12, -2)}) {
+                    for (int order = 0; order < 4; order++) {
+                        boolean reverseX = (order & 1) != 0, reverseY = (order & 2) != 0;
+                        List<MapLocation> expected = new ArrayList<>();
+                        for (int i = 0; i < width; i++) {
+                            int x = reverseX ? width - 1 - i : i;
+                            for (int j = 0; j < height; j++) {
+                                int y = reverseY ? height - 1 - j : j;
+                                if (center.isWithinDistanceSquared(new MapLocation(x, y), radiusSquared, facing, 90)) {
+                                    expected.add(new MapLocation(x, y));
+                                }
+                            }
+                        }
+                        assertArrayEquals(expected.toArray(new MapLocation[0]),
+                                offsets.locationsAround(center, origin, width, height, reverseX, reverseY));
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testLocationsAroundWithinAnotherShape() {
+        MapLocation origin = new MapLocation(0, 0);
+        MapLocation center = new MapLocation(3, 4);
+        ConeOffsets offsets = ConeOffsets.of(20, Direction.CENTER, 360, false);
+        for (Direction facing : Direction.values()) {
+            for (boolean useBottomLeft : new boolean[] {false, true}) {
+                ConeOffsets within = ConeOffsets.of(25, facing, 90, useBottomLeft);
+                MapLocation withinCenter = new MapLocation(5, 2);
+                List<MapLocation> expected = new ArrayList<>();
+                for (MapLocation loc : offsets.locationsAround(center, origin, 10, 8, true, false)) {
+                    if (withinCenter.isWithinDistanceSquared(loc, 25, facing, 90, useBottomLeft)) {
+                        expected.add(loc);
+                    }
+                }
+                assertArrayEquals(expected.toArray(new MapLocation[0]),
+                        offsets.locationsAround(center, origin, 10, 8, true, false, within, withinCenter));
+            }
+        }
+    }
+
+    @Test
+    public void testSharedAndBounded() {
+        assertSame(ConeOffsets.of(20, Direction.NORTH, 90, false), ConeOffsets.of(20, Direction.NORTH, 90, false));
+        assertNull(ConeOffsets.of(ConeOffsets.MAX_RADIUS_SQUARED + 1, Direction.CENTER, 360, false));
+    }
+}
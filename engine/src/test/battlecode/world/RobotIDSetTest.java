@@ -0,0 +1,34 @@
+package battlecode.world;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class RobotIDSetTest {
+
+    @Test
+    public void testAddAndClear() {
+        RobotIDSet ids = new RobotIDSet();
+        assertTrue(ids.add(10000));
+        assertTrue(ids.add(3));
+        assertFalse(ids.add(10000));
+        assertTrue(ids.contains(3));
+        assertFalse(ids.contains(4));
+
+        ids.clear();
+        assertFalse(ids.contains(10000));
+        assertFalse(ids.contains(3));
+        assertTrue(ids.add(3));
+    }
+
+    @Test
+    public void testGrowsForLargeIDs() {
+        RobotIDSet ids = new RobotIDSet();
+        assertFalse(ids.contains(1 << 20));
+        assertTrue(ids.add(1 << 20));
+        assertTrue(ids.contains(1 << 20));
+        assertFalse(ids.add(1 << 20));
+        ids.clear();
+        assertTrue(ids.add(1 << 20));
+    }
+}
@@ -0,0 +1,58 @@
+package battlecode.world;
+
+import battlecode.common.Team;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import static org.junit.Assert.*;
+
+public class RobotIndexTest {
+
+    @Test
+    public void testMatchesScan() {
+        int width = 30, height = 20;
+        Random random = new Random(2026);
+        RobotIndex index = new RobotIndex(width, height);
+        Team[] teams = new Team[width * height];
+
+        for (int step = 0; step < 2000; step++) {
+            int tile = random.nextInt(teams.length);
+            if (random.nextInt(3) == 0) {
+                index.remove(tile);
+                teams[tile] = null;
+            } else {
+                Team team = Team.values()[random.nextInt(3)];
+                index.add(tile, team);
+                teams[tile] = team;
+            }
+
+            int minX = random.nextInt(width + 10) - 5, minY = random.nextInt(height + 10) - 5;
+            int maxX = minX + random.nextInt(12), maxY = minY + random.nextInt(12);
+            Team team = random.nextBoolean() ? null : Team.values()[random.nextInt(3)];
+            int[] expected = scan(teams, width, height, minX, minY, maxX, maxY, team);
+            assertArrayEquals(expected, sorted(index.tilesWithin(minX, minY, maxX, maxY, team)));
+
+            int[] found = new int[width * height];
+            int n = index.tilesWithin(minX, minY, maxX, maxY, team, found);
+            assertArrayEquals(expected, sorted(Arrays.copyOf(found, n)));
+            if (n > 0) {
+                assertEquals(-1, index.tilesWithin(minX, minY, maxX, maxY, team, new int[n - 1]));
+            }
+        }
+    }
+
+    private static int[] scan(Team[] teams, int width, int height, int minX, int minY, int maxX, int maxY, Team team) {
+        return IntStream.range(0, teams.length)
+                .filter(tile -> teams[tile] != null && (team == null || teams[tile] == team))
+                .filter(tile -> tile % width >= minX && tile % width <= maxX && tile / width >= minY && tile / width <= maxY)
+                .toArray();
+    }
+
+    private static int[] sorted(int[] tiles) {
+        Arrays.sort(tiles);
+        return tiles;
+    }
+}